@@ -4,10 +4,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan("com.example.usermanagement.entity")
 @EnableJpaRepositories("com.example.usermanagement.repository")
+@EnableScheduling
+@EnableAsync
 public class UserManagementApplication {
   public static void main(String[] args) {
     SpringApplication.run(UserManagementApplication.class, args);
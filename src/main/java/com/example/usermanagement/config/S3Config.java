@@ -7,7 +7,10 @@ import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class S3Config {
@@ -23,6 +26,9 @@ public class S3Config {
   @Value("${app.aws.s3.secret-key}")
   private String secretKey;
 
+  @Value("${app.aws.s3.path-style-access:true}")
+  private boolean pathStyleAccess;
+
   @Bean
   public S3Client s3Client() {
     return S3Client.builder()
@@ -30,6 +36,32 @@ public class S3Config {
         .credentialsProvider(
             StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
         .region(Region.of(region))
+        .forcePathStyle(pathStyleAccess)
+        .build();
+  }
+
+  /** Signs URLs that let clients upload straight to the bucket, without a round trip to S3. */
+  @Bean
+  public S3Presigner s3Presigner() {
+    return S3Presigner.builder()
+        .endpointOverride(URI.create(endpoint))
+        .credentialsProvider(
+            StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+        .region(Region.of(region))
+        .serviceConfiguration(
+            S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build())
+        .build();
+  }
+
+  /** Non-blocking client for streaming uploads; its Netty event loop does the network I/O. */
+  @Bean
+  public S3AsyncClient s3AsyncClient() {
+    return S3AsyncClient.builder()
+        .endpointOverride(URI.create(endpoint))
+        .credentialsProvider(
+            StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+        .region(Region.of(region))
+        .forcePathStyle(pathStyleAccess)
         .build();
   }
 }
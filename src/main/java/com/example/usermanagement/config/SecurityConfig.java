@@ -1,10 +1,14 @@
 package com.example.usermanagement.config;
 
+import com.example.usermanagement.security.BcryptCostCalibrator;
+import com.example.usermanagement.security.BoundedPasswordEncoder;
 import com.example.usermanagement.security.CustomUserDetailsService;
 import com.example.usermanagement.security.JwtAuthenticationFilter;
 import com.example.usermanagement.security.oauth2.OAuth2AuthenticationSuccessHandler;
 import com.example.usermanagement.security.oauth2.OAuth2UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -36,10 +40,16 @@ public class SecurityConfig {
             session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(
             auth ->
-                auth.requestMatchers("/api/auth/**")
+                auth.requestMatchers("/api/auth/logout")
+                    .authenticated()
+                    .requestMatchers("/api/auth/**")
                     .permitAll()
                     .requestMatchers("/api/public/**")
                     .permitAll()
+                    .requestMatchers("/actuator/health")
+                    .permitAll()
+                    .requestMatchers("/actuator/**", "/api/admin/**")
+                    .hasRole("ADMIN")
                     .anyRequest()
                     .authenticated())
         .userDetailsService(customUserDetailsService)
@@ -54,8 +64,17 @@ public class SecurityConfig {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      MeterRegistry meterRegistry,
+      BcryptCostCalibrator bcryptCostCalibrator,
+      @Value("${app.password-hashing.threads:0}") int threads,
+      @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(bcryptCostCalibrator.getStrength()),
+        poolSize,
+        queueCapacity,
+        meterRegistry);
   }
 
   @Bean
@@ -0,0 +1,56 @@
+package com.example.usermanagement.controller;
+
+import com.example.usermanagement.dto.SessionRevocationRequest;
+import com.example.usermanagement.service.SessionRevocationService;
+import com.example.usermanagement.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+  private static final String NDJSON = "application/x-ndjson";
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+  private final UserImportService userImportService;
+  private final SessionRevocationService sessionRevocationService;
+
+  /**
+   * Imports users from a CSV or JSON Lines request body. The body is read and the NDJSON report
+   * written while the import runs, so neither is buffered in memory.
+   */
+  @PostMapping(
+      value = "/users/import",
+      consumes = {"text/csv", NDJSON, "application/jsonl"},
+      produces = NDJSON)
+  @PreAuthorize("hasRole('ADMIN')")
+  public void importUsers(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    UserImportService.Format format =
+        TEXT_CSV.includes(MediaType.parseMediaType(request.getContentType()))
+            ? UserImportService.Format.CSV
+            : UserImportService.Format.JSON_LINES;
+    response.setContentType(NDJSON);
+    userImportService.importUsers(request.getInputStream(), format, response.getOutputStream());
+  }
+
+  /**
+   * Revokes the sessions of users selected by id, role or session creation time. Progress is
+   * streamed as NDJSON, one line per batch of users and a summary line.
+   */
+  @PostMapping(value = "/sessions/revoke", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @PreAuthorize("hasRole('ADMIN')")
+  public void revokeSessions(
+      @RequestBody SessionRevocationRequest request, HttpServletResponse response)
+      throws IOException {
+    sessionRevocationService.validate(request);
+    response.setContentType(NDJSON);
+    sessionRevocationService.revoke(request, response.getOutputStream());
+  }
+}
@@ -1,10 +1,16 @@
 package com.example.usermanagement.controller;
 
 import com.example.usermanagement.dto.*;
+import com.example.usermanagement.security.LoginRateLimiter;
+import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.VerifiedToken;
 import com.example.usermanagement.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -12,14 +18,22 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class AuthController {
   private final AuthService authService;
+  private final LoginRateLimiter loginRateLimiter;
 
   @PostMapping("/signup")
-  public ResponseEntity<SignupResponse> signup(@Valid @RequestBody SignupRequest request) {
+  public ResponseEntity<SignupResponse> signup(
+      @Valid @RequestBody SignupRequest request, HttpServletRequest servletRequest) {
+    loginRateLimiter.acquire(servletRequest.getRemoteAddr(), request.getEmail());
     return ResponseEntity.ok(authService.signup(request));
   }
 
   @PostMapping("/login")
-  public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
+  public ResponseEntity<LoginResponse> login(
+      @Valid @RequestBody LoginRequest request, HttpServletRequest servletRequest) {
+    loginRateLimiter.acquire(servletRequest.getRemoteAddr(), request.getEmail());
+    if (request.getDeviceName() == null) {
+      request.setDeviceName(abbreviate(servletRequest.getHeader(HttpHeaders.USER_AGENT)));
+    }
     return ResponseEntity.ok(authService.login(request));
   }
 
@@ -29,9 +43,16 @@ public class AuthController {
     return ResponseEntity.ok(authService.refreshToken(request.getRefreshToken()));
   }
 
+  private static String abbreviate(String userAgent) {
+    return userAgent == null || userAgent.length() <= 100 ? userAgent : userAgent.substring(0, 100);
+  }
+
+  /** Signs out the authenticated user; see {@code SecurityConfig}, which requires a token here. */
   @PostMapping("/logout")
-  public ResponseEntity<Void> logout(@RequestBody String email) {
-    authService.logout(email);
+  public ResponseEntity<Void> logout(Authentication authentication) {
+    authService.logout(
+        ((UserPrincipal) authentication.getPrincipal()).getId(),
+        authentication.getCredentials() instanceof VerifiedToken token ? token : null);
     return ResponseEntity.ok().build();
   }
 }
@@ -0,0 +1,34 @@
+package com.example.usermanagement.controller;
+
+import com.example.usermanagement.security.SigningKeyManager;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/public/.well-known")
+@ConditionalOnProperty(name = "app.jwt.signing-algorithm", havingValue = "ES256")
+public class JwksController {
+  private final SigningKeyManager signingKeyManager;
+  private final CacheControl cacheControl;
+
+  public JwksController(
+      SigningKeyManager signingKeyManager,
+      @Value("${app.jwt.signing-keys.jwks-max-age:900000}") long jwksMaxAge) {
+    this.signingKeyManager = signingKeyManager;
+    this.cacheControl = CacheControl.maxAge(Duration.ofMillis(jwksMaxAge)).cachePublic();
+  }
+
+  @GetMapping("/jwks.json")
+  public ResponseEntity<Map<String, Object>> jwks() {
+    return ResponseEntity.ok()
+        .cacheControl(cacheControl)
+        .body(Map.of("keys", signingKeyManager.jwks()));
+  }
+}
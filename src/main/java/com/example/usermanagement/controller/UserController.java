@@ -1,12 +1,23 @@
 package com.example.usermanagement.controller;
 
+import com.example.usermanagement.dto.ProfilePictureConfirmRequest;
+import com.example.usermanagement.dto.ProfilePictureUploadRequest;
+import com.example.usermanagement.dto.ProfilePictureUploadResponse;
+import com.example.usermanagement.dto.SessionResponse;
 import com.example.usermanagement.dto.UpdateUserRequest;
 import com.example.usermanagement.dto.UserResponse;
 import com.example.usermanagement.security.CurrentUser;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.service.SessionService;
 import com.example.usermanagement.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,6 +29,7 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor
 public class UserController {
   private final UserService userService;
+  private final SessionService sessionService;
 
   @GetMapping("/me")
   @PreAuthorize("hasRole('USER')")
@@ -39,9 +51,57 @@ public class UserController {
     return ResponseEntity.ok(userService.updateProfilePicture(currentUser, file));
   }
 
+  /**
+   * Streams a raw image body, e.g. {@code Content-Type: image/png}, straight to storage instead of
+   * spooling a multipart form first.
+   */
+  @PutMapping("/me/profile-picture")
+  @PreAuthorize("hasRole('USER')")
+  public ResponseEntity<UserResponse> streamProfilePicture(
+      @CurrentUser UserPrincipal currentUser, HttpServletRequest request) throws IOException {
+    return ResponseEntity.ok(
+        userService.updateProfilePicture(
+            currentUser,
+            request.getInputStream(),
+            request.getContentType(),
+            request.getContentLengthLong()));
+  }
+
+  /** Presigns a direct upload to storage; confirm it afterwards with the returned key. */
+  @PostMapping("/me/profile-picture/uploads")
+  @PreAuthorize("hasRole('USER')")
+  public ResponseEntity<ProfilePictureUploadResponse> createProfilePictureUpload(
+      @CurrentUser UserPrincipal currentUser,
+      @Valid @RequestBody ProfilePictureUploadRequest request) {
+    return ResponseEntity.ok(userService.createProfilePictureUpload(currentUser, request));
+  }
+
+  @PostMapping("/me/profile-picture/confirm")
+  @PreAuthorize("hasRole('USER')")
+  public ResponseEntity<UserResponse> confirmProfilePicture(
+      @CurrentUser UserPrincipal currentUser,
+      @Valid @RequestBody ProfilePictureConfirmRequest request) {
+    return ResponseEntity.ok(userService.confirmProfilePicture(currentUser, request.getKey()));
+  }
+
   @DeleteMapping("/me/profile-picture")
   @PreAuthorize("hasRole('USER')")
   public ResponseEntity<UserResponse> deleteProfilePicture(@CurrentUser UserPrincipal currentUser) {
     return ResponseEntity.ok(userService.deleteProfilePicture(currentUser));
   }
+
+  @GetMapping("/me/sessions")
+  @PreAuthorize("hasRole('USER')")
+  public ResponseEntity<Page<SessionResponse>> getSessions(
+      @CurrentUser UserPrincipal currentUser, @PageableDefault(size = 20) Pageable pageable) {
+    return ResponseEntity.ok(sessionService.getSessions(currentUser, pageable));
+  }
+
+  @DeleteMapping("/me/sessions/{sessionId}")
+  @PreAuthorize("hasRole('USER')")
+  public ResponseEntity<Void> revokeSession(
+      @CurrentUser UserPrincipal currentUser, @PathVariable UUID sessionId) {
+    sessionService.revokeSession(currentUser, sessionId);
+    return ResponseEntity.noContent().build();
+  }
 }
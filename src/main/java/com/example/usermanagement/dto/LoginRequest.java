@@ -1,6 +1,7 @@
 package com.example.usermanagement.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
@@ -8,4 +9,8 @@ public class LoginRequest {
   @NotBlank private String email;
 
   @NotBlank private String password;
+
+  /** Shown in the user's session list; defaults to the User-Agent header. */
+  @Size(max = 100)
+  private String deviceName;
 }
@@ -0,0 +1,9 @@
+package com.example.usermanagement.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ProfilePictureConfirmRequest {
+  @NotBlank private String key;
+}
@@ -0,0 +1,12 @@
+package com.example.usermanagement.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class ProfilePictureUploadRequest {
+  @NotBlank private String contentType;
+
+  @Positive private long contentLength;
+}
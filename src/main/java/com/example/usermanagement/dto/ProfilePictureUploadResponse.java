@@ -0,0 +1,19 @@
+package com.example.usermanagement.dto;
+
+import java.time.Instant;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Where to PUT the image directly to storage. The request must carry exactly {@code headers}, which
+ * are part of the signature, and the {@code key} is then passed to the confirm endpoint.
+ */
+@Data
+@Builder
+public class ProfilePictureUploadResponse {
+  private String uploadUrl;
+  private Map<String, String> headers;
+  private String key;
+  private Instant expiresAt;
+}
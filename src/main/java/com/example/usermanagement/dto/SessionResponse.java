@@ -0,0 +1,27 @@
+package com.example.usermanagement.dto;
+
+import com.example.usermanagement.entity.RefreshToken;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SessionResponse {
+  private UUID id;
+  private String deviceName;
+  private Instant createdAt;
+  private Instant lastUsedAt;
+  private Instant expiresAt;
+
+  public static SessionResponse fromRefreshToken(RefreshToken token) {
+    return SessionResponse.builder()
+        .id(token.getFamilyId())
+        .deviceName(token.getDeviceName())
+        .createdAt(token.getCreatedAt())
+        .lastUsedAt(token.getLastUsedAt())
+        .expiresAt(token.getExpiryDate())
+        .build();
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.usermanagement.dto;
+
+import com.example.usermanagement.entity.Role;
+import java.time.Instant;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Selects the sessions to revoke, by exactly one of: a list of user ids, a role, or a window on
+ * session creation time ({@code createdFrom} inclusive, {@code createdTo} exclusive).
+ */
+@Data
+public class SessionRevocationRequest {
+  private List<Long> userIds;
+  private Role.RoleName role;
+  private Instant createdFrom;
+  private Instant createdTo;
+}
@@ -2,6 +2,7 @@ package com.example.usermanagement.dto;
 
 import com.example.usermanagement.entity.User;
 import java.time.Instant;
+import java.util.Map;
 import lombok.Builder;
 import lombok.Data;
 
@@ -12,15 +13,22 @@ public class UserResponse {
   private String username;
   private String email;
   private String profilePictureUrl;
+  private Map<Integer, String> profilePictureThumbnails;
   private Instant createdAt;
   private Instant updatedAt;
 
-  public static UserResponse fromUser(User user) {
+  /**
+   * {@code profilePictureUrl} is what clients should fetch, not the stored key; {@code
+   * profilePictureThumbnails} likewise, by size in pixels, for the thumbnails made so far.
+   */
+  public static UserResponse fromUser(
+      User user, String profilePictureUrl, Map<Integer, String> profilePictureThumbnails) {
     return UserResponse.builder()
         .id(user.getId())
         .username(user.getUsername())
         .email(user.getEmail())
-        .profilePictureUrl(user.getProfilePictureUrl())
+        .profilePictureUrl(profilePictureUrl)
+        .profilePictureThumbnails(profilePictureThumbnails)
         .createdAt(user.getCreatedAt())
         .updatedAt(user.getUpdatedAt())
         .build();
@@ -0,0 +1,22 @@
+package com.example.usermanagement.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+
+/** An access token that must be rejected until it expires. */
+@Entity
+@Table(name = "access_token_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccessTokenRevocation {
+  @Id private String jti;
+
+  @Column(name = "revoked_at", nullable = false)
+  private Instant revokedAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private Instant expiresAt;
+}
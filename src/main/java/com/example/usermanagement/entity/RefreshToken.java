@@ -2,8 +2,13 @@ package com.example.usermanagement.entity;
 
 import jakarta.persistence.*;
 import java.time.Instant;
+import java.util.UUID;
 import lombok.*;
 
+/**
+ * One session family: the refresh token a device currently holds. Each refresh rotates the token
+ * and remembers the one it replaced, so presenting a rotated-out token again reveals reuse.
+ */
 @Entity
 @Table(name = "refresh_tokens")
 @Data
@@ -12,16 +17,39 @@ import lombok.*;
 @Builder
 public class RefreshToken {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_id_seq")
+  @SequenceGenerator(
+      name = "refresh_tokens_id_seq",
+      sequenceName = "refresh_tokens_id_seq",
+      allocationSize = 50)
   private Long id;
 
-  @OneToOne
-  @JoinColumn(name = "user_id", referencedColumnName = "id")
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
   private User user;
 
-  @Column(nullable = false, unique = true)
-  private String token;
+  @Column(name = "family_id", nullable = false, updatable = false)
+  private UUID familyId;
+
+  /** SHA-256 of the token handed to the client; the token itself is never stored. */
+  @Column(name = "token_hash", nullable = false, unique = true, length = 32)
+  private byte[] tokenHash;
+
+  /** SHA-256 of the token this one replaced, or {@code null} before the first refresh. */
+  @Column(name = "previous_token_hash", length = 32)
+  private byte[] previousTokenHash;
+
+  @Column(name = "device_name", length = 100)
+  private String deviceName;
 
   @Column(nullable = false)
   private Instant expiryDate;
+
+  @Column(name = "created_at", insertable = false, updatable = false)
+  private Instant createdAt;
+
+  @Column(name = "last_used_at", nullable = false)
+  private Instant lastUsedAt;
 }
@@ -0,0 +1,25 @@
+package com.example.usermanagement.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.*;
+
+/** A session family whose stateless refresh tokens must be rejected until {@code expiresAt}. */
+@Entity
+@Table(name = "refresh_token_revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenRevocation {
+  @Id
+  @Column(name = "family_id")
+  private UUID familyId;
+
+  @Column(name = "revoked_at", nullable = false)
+  private Instant revokedAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private Instant expiresAt;
+}
@@ -10,7 +10,8 @@ import lombok.*;
 @AllArgsConstructor
 public class Role {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roles_id_seq")
+  @SequenceGenerator(name = "roles_id_seq", sequenceName = "roles_id_seq", allocationSize = 50)
   private Long id;
 
   @Enumerated(EnumType.STRING)
@@ -0,0 +1,27 @@
+package com.example.usermanagement.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+
+@Entity
+@Table(name = "jwt_signing_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SigningKey {
+  @Id private String kid;
+
+  @Column(nullable = false)
+  private String algorithm;
+
+  @Column(name = "public_key", nullable = false)
+  private byte[] publicKey;
+
+  @Column(name = "private_key", nullable = false)
+  private byte[] privateKey;
+
+  @Column(name = "created_at", nullable = false)
+  private Instant createdAt;
+}
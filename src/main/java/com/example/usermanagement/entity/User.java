@@ -14,7 +14,8 @@ import lombok.*;
 @AllArgsConstructor
 public class User {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+  @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, unique = true)
@@ -27,11 +28,18 @@ public class User {
 
   private String profilePictureUrl;
 
+  /** Sizes, in pixels, of the thumbnails generated for the current picture so far. */
+  @Column(name = "profile_picture_thumbnails")
+  private Integer[] profilePictureThumbnails;
+
   @Enumerated(EnumType.STRING)
   private Provider provider;
 
   private String providerId;
 
+  @Column(name = "token_version", nullable = false)
+  private int tokenVersion;
+
   @Column(name = "created_at")
   private Instant createdAt;
 
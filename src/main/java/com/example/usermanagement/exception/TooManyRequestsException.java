@@ -0,0 +1,16 @@
+package com.example.usermanagement.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  public TooManyRequestsException(long retryAfterSeconds) {
+    super("Too many attempts, retry in " + retryAfterSeconds + " seconds");
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
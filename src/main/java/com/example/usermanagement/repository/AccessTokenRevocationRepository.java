@@ -0,0 +1,33 @@
+package com.example.usermanagement.repository;
+
+import com.example.usermanagement.entity.AccessTokenRevocation;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface AccessTokenRevocationRepository
+    extends JpaRepository<AccessTokenRevocation, String> {
+  List<AccessTokenRevocation> findByExpiresAtAfter(Instant now);
+
+  /** Records a revocation; revoking a token twice keeps the first row. */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO access_token_revocations (jti, revoked_at, expires_at) VALUES (:jti,"
+              + " :revokedAt, :expiresAt) ON CONFLICT (jti) DO NOTHING",
+      nativeQuery = true)
+  int insert(
+      @Param("jti") String jti,
+      @Param("revokedAt") Instant revokedAt,
+      @Param("expiresAt") Instant expiresAt);
+
+  @Transactional
+  @Modifying
+  @Query("delete from AccessTokenRevocation r where r.expiresAt < :now")
+  int deleteExpired(@Param("now") Instant now);
+}
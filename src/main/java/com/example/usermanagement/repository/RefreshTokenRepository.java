@@ -1,14 +1,94 @@
 package com.example.usermanagement.repository;
 
 import com.example.usermanagement.entity.RefreshToken;
-import com.example.usermanagement.entity.User;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-  Optional<RefreshToken> findByToken(String token);
+  Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
 
-  Optional<RefreshToken> findByUser(User user);
+  Optional<RefreshToken> findByPreviousTokenHash(byte[] previousTokenHash);
 
-  void deleteByUser(User user);
+  Page<RefreshToken> findByUserIdOrderByLastUsedAtDesc(Long userId, Pageable pageable);
+
+  /** One set-based statement, where a derived delete would load and remove rows one by one. */
+  @Modifying
+  @Query("delete from RefreshToken t where t.user.id = :userId")
+  int deleteAllByUserId(@Param("userId") Long userId);
+
+  /**
+   * Swaps in the next token of a family if {@code currentHash} is still its current token. Returns
+   * 0 when a concurrent refresh already rotated it.
+   */
+  @Modifying
+  @Query(
+      "update RefreshToken t set t.previousTokenHash = t.tokenHash, t.tokenHash = :newHash,"
+          + " t.expiryDate = :expiryDate, t.lastUsedAt = :now"
+          + " where t.id = :id and t.tokenHash = :currentHash")
+  int rotate(
+      @Param("id") Long id,
+      @Param("currentHash") byte[] currentHash,
+      @Param("newHash") byte[] newHash,
+      @Param("expiryDate") Instant expiryDate,
+      @Param("now") Instant now);
+
+  @Modifying
+  @Query("delete from RefreshToken t where t.familyId = :familyId")
+  int deleteByFamilyId(@Param("familyId") UUID familyId);
+
+  @Modifying
+  @Query("delete from RefreshToken t where t.familyId = :familyId and t.user.id = :userId")
+  int deleteByFamilyIdAndUserId(@Param("familyId") UUID familyId, @Param("userId") Long userId);
+
+  @Query("select t.familyId from RefreshToken t where t.user.id = :userId")
+  List<UUID> findFamilyIdsByUserId(@Param("userId") Long userId);
+
+  /** The families {@link #deleteLeastRecentlyUsed} with the same arguments would delete. */
+  @Query(
+      value =
+          "SELECT family_id FROM refresh_tokens WHERE user_id = :userId ORDER BY last_used_at DESC,"
+              + " id DESC OFFSET :keep",
+      nativeQuery = true)
+  List<UUID> findLeastRecentlyUsedFamilyIds(@Param("userId") Long userId, @Param("keep") int keep);
+
+  /** Deletes all but the user's {@code keep} most recently used sessions. */
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM refresh_tokens WHERE id IN (SELECT id FROM refresh_tokens WHERE user_id ="
+              + " :userId ORDER BY last_used_at DESC, id DESC OFFSET :keep)",
+      nativeQuery = true)
+  int deleteLeastRecentlyUsed(@Param("userId") Long userId, @Param("keep") int keep);
+
+  @Query(
+      value =
+          "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid ="
+              + " CAST('refresh_tokens' AS regclass))",
+      nativeQuery = true)
+  boolean isPartitioned();
+
+  @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+  boolean tryAdvisoryXactLock(@Param("lockId") long lockId);
+
+  /**
+   * Deletes up to {@code limit} tokens that expired before {@code now}, in its own short
+   * transaction. Rows locked by a login or another reaper are skipped rather than waited on.
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM refresh_tokens WHERE id IN (SELECT id FROM refresh_tokens WHERE expiry_date"
+              + " < :now LIMIT :limit FOR UPDATE SKIP LOCKED)",
+      nativeQuery = true)
+  int deleteExpiredChunk(@Param("now") Instant now, @Param("limit") int limit);
 }
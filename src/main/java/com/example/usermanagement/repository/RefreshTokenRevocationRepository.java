@@ -0,0 +1,30 @@
+package com.example.usermanagement.repository;
+
+import com.example.usermanagement.entity.RefreshTokenRevocation;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RefreshTokenRevocationRepository
+    extends JpaRepository<RefreshTokenRevocation, UUID> {
+  /** Records a revocation; revoking a family twice keeps the first row. */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO refresh_token_revocations (family_id, revoked_at, expires_at) VALUES"
+              + " (:familyId, :revokedAt, :expiresAt) ON CONFLICT (family_id) DO NOTHING",
+      nativeQuery = true)
+  int insert(
+      @Param("familyId") UUID familyId,
+      @Param("revokedAt") Instant revokedAt,
+      @Param("expiresAt") Instant expiresAt);
+
+  @Transactional
+  @Modifying
+  @Query("delete from RefreshTokenRevocation r where r.expiresAt < :now")
+  int deleteExpired(@Param("now") Instant now);
+}
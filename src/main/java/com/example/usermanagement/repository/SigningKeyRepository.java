@@ -0,0 +1,14 @@
+package com.example.usermanagement.repository;
+
+import com.example.usermanagement.entity.SigningKey;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+  List<SigningKey> findAllByOrderByCreatedAtDesc();
+
+  @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+  boolean tryAdvisoryXactLock(@Param("lockId") long lockId);
+}
@@ -3,6 +3,10 @@ package com.example.usermanagement.repository;
 import com.example.usermanagement.entity.User;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
@@ -12,4 +16,43 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Boolean existsByEmail(String email);
 
   Boolean existsByUsername(String username);
+
+  @Query("select u.tokenVersion from User u where u.id = :id")
+  Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+  @Modifying
+  @Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.id = :id")
+  int incrementTokenVersion(@Param("id") Long id);
+
+  /** Locks the user row until the end of the transaction, returning its id if it exists. */
+  @Query(value = "SELECT id FROM users WHERE id = :id FOR NO KEY UPDATE", nativeQuery = true)
+  Optional<Long> lockById(@Param("id") Long id);
+
+  /**
+   * Sets the picture and forgets its thumbnails. Clears the persistence context, which open-in-view
+   * keeps for the whole request, so a later {@code findById} does not return the old picture.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query(
+      "update User u set u.profilePictureUrl = :url, u.profilePictureThumbnails = null,"
+          + " u.updatedAt = CURRENT_TIMESTAMP where u.id = :id")
+  int updateProfilePictureUrl(@Param("id") Long id, @Param("url") String url);
+
+  /** Records the thumbnail sizes of {@code key}, unless the picture was changed meanwhile. */
+  @Transactional
+  @Modifying
+  @Query(
+      "update User u set u.profilePictureThumbnails = :sizes"
+          + " where u.id = :id and u.profilePictureUrl = :key")
+  int updateProfilePictureThumbnails(
+      @Param("id") Long id, @Param("key") String key, @Param("sizes") Integer[] sizes);
+
+  @Transactional
+  @Modifying
+  @Query("update User u set u.password = :newHash where u.id = :id and u.password = :currentHash")
+  int updatePasswordIfUnchanged(
+      @Param("id") Long id,
+      @Param("currentHash") String currentHash,
+      @Param("newHash") String newHash);
 }
@@ -0,0 +1,259 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.entity.AccessTokenRevocation;
+import com.example.usermanagement.repository.AccessTokenRevocationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The cluster-wide denylist of access tokens, by {@code jti}. Each node holds the unexpired entries
+ * in a concurrent map, so checking a token is a lock-free read.
+ *
+ * <p>Nodes tell each other about revocations with Postgres {@code NOTIFY} on one channel, and no
+ * broker is needed. A notification sent inside a transaction is only delivered if it commits. Each
+ * node keeps one dedicated connection to {@code LISTEN} on. Denied tokens are also written to
+ * {@code access_token_revocations}, which a node reloads whenever it (re)starts listening. {@link
+ * UserChangedEvent}s travel the same way, so token-version bumps and cached principals take effect
+ * on every node at once rather than when caches expire.
+ */
+@Component
+@Slf4j
+public class AccessTokenRevocations implements SmartLifecycle {
+  static final String CHANNEL = "token_revocations";
+  private static final int RECEIVE_TIMEOUT = 1000;
+  private static final long RECONNECT_DELAY = 5000;
+  // Keeps a payload well under the 8000 byte NOTIFY limit
+  private static final int USERS_PER_NOTIFICATION = 400;
+
+  private final AccessTokenRevocationRepository revocationRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final boolean listen;
+  private final String url;
+  private final String username;
+  private final String password;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+  private volatile boolean running;
+  private Thread listener;
+
+  public AccessTokenRevocations(
+      AccessTokenRevocationRepository revocationRepository,
+      JdbcTemplate jdbcTemplate,
+      ApplicationEventPublisher eventPublisher,
+      MeterRegistry meterRegistry,
+      @Value("${app.jwt.revocations.listen:true}") boolean listen,
+      @Value("${spring.datasource.url:}") String url,
+      @Value("${spring.datasource.username:}") String username,
+      @Value("${spring.datasource.password:}") String password) {
+    this.revocationRepository = revocationRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.eventPublisher = eventPublisher;
+    this.listen = listen;
+    this.url = url;
+    this.username = username;
+    this.password = password;
+    Gauge.builder("access_tokens.revocations", revoked, Map::size)
+        .description("Revoked access tokens held in memory")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Starts listening once every bean exists, ahead of the web server. A listener started during
+   * context refresh could deadlock with it on the bean factory's locks.
+   */
+  @Override
+  public void start() {
+    if (listen) {
+      running = true;
+      listener = new Thread(this::listen, "access-token-revocations");
+      listener.setDaemon(true);
+      listener.start();
+    } else {
+      reload();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    if (listener != null) {
+      listener.interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4096;
+  }
+
+  /** Whether the token with this {@code jti} was revoked; tokens without one never are. */
+  public boolean isRevoked(String jti) {
+    return jti != null && revoked.containsKey(jti);
+  }
+
+  /** Rejects the access token on every node, from the moment the transaction commits. */
+  @Transactional
+  public void revoke(String jti, Instant expiresAt) {
+    if (jti == null) {
+      return; // Issued before tokens carried one; a token-version bump still revokes it
+    }
+    revocationRepository.insert(jti, Instant.now(), expiresAt);
+    publish("jti " + jti + " " + expiresAt.getEpochSecond());
+    revoked.put(jti, expiresAt);
+  }
+
+  /**
+   * Relays local user changes. Inside a transaction they are collected and sent just before it
+   * commits, so they go out with the change or not at all, and a bulk change costs a few
+   * notifications rather than one per user.
+   */
+  @EventListener
+  @SuppressWarnings("unchecked")
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.remote()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      publishUsers(List.of(event.userId()));
+      return;
+    }
+    Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      Set<Long> userIds = new LinkedHashSet<>();
+      TransactionSynchronizationManager.bindResource(this, userIds);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              publishUsers(userIds);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(
+                  AccessTokenRevocations.this);
+            }
+          });
+      pending = userIds;
+    }
+    pending.add(event.userId());
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.jwt.revocations.purge-interval:3600000}",
+      initialDelayString = "${app.jwt.revocations.purge-interval:3600000}")
+  public void purge() {
+    Instant now = Instant.now();
+    revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+    revocationRepository.deleteExpired(now);
+  }
+
+  private void publishUsers(Collection<Long> userIds) {
+    StringBuilder message = new StringBuilder("user");
+    int count = 0;
+    for (Long userId : userIds) {
+      message.append(' ').append(userId);
+      if (++count % USERS_PER_NOTIFICATION == 0) {
+        publish(message.toString());
+        message.setLength(4);
+      }
+    }
+    if (count % USERS_PER_NOTIFICATION != 0) {
+      publish(message.toString());
+    }
+  }
+
+  private void publish(String message) {
+    jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, nodeId + " " + message);
+  }
+
+  private void reload() {
+    for (AccessTokenRevocation revocation :
+        revocationRepository.findByExpiresAtAfter(Instant.now())) {
+      revoked.put(revocation.getJti(), revocation.getExpiresAt());
+    }
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = DriverManager.getConnection(url, username, password)) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        // Anything revoked while we were not listening
+        reload();
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(RECEIVE_TIMEOUT);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              receive(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (running) {
+          log.warn("Lost the {} listener connection, reconnecting", CHANNEL, e);
+          try {
+            Thread.sleep(RECONNECT_DELAY);
+          } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  void receive(String payload) {
+    String[] parts = payload.split(" ");
+    if (parts.length < 3 || parts[0].equals(nodeId)) {
+      return;
+    }
+    try {
+      switch (parts[1]) {
+        case "jti" -> revoked.put(parts[2], Instant.ofEpochSecond(Long.parseLong(parts[3])));
+        case "user" -> {
+          for (int i = 2; i < parts.length; i++) {
+            eventPublisher.publishEvent(new UserChangedEvent(Long.parseLong(parts[i]), true));
+          }
+        }
+        default -> log.warn("Ignoring unknown {} notification {}", CHANNEL, payload);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Ignoring malformed {} notification {}", CHANNEL, payload);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.usermanagement.security;
+
+import java.util.Arrays;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides the BCrypt cost this node hashes with. With calibration on, it times hashing at startup
+ * and picks the highest cost whose p99 stays within {@code target-p99}; otherwise it uses the fixed
+ * {@code bcrypt-strength}.
+ *
+ * <p>The budget is for a single hash on an otherwise idle host. Under load, hashes queue on the
+ * hashing pool, so login capacity is roughly {@code cores / hash time}.
+ */
+@Component
+@Slf4j
+public class BcryptCostCalibrator {
+  private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+  @Getter private final int strength;
+
+  public BcryptCostCalibrator(
+      @Value("${app.password-hashing.bcrypt-strength:10}") int fixedStrength,
+      @Value("${app.password-hashing.calibration.enabled:false}") boolean calibrate,
+      @Value("${app.password-hashing.calibration.target-p99:250}") long targetP99Millis,
+      @Value("${app.password-hashing.calibration.min-strength:10}") int minStrength,
+      @Value("${app.password-hashing.calibration.max-strength:14}") int maxStrength,
+      @Value("${app.password-hashing.calibration.samples:10}") int samples) {
+    this.strength =
+        calibrate ? calibrate(targetP99Millis, minStrength, maxStrength, samples) : fixedStrength;
+  }
+
+  /** Whether a stored hash was made with a different cost than this node now uses. */
+  public boolean needsRehash(String encodedPassword) {
+    return encodedPassword != null
+        && encodedPassword.length() > 6
+        && encodedPassword.startsWith("$2")
+        && strengthOf(encodedPassword) != strength;
+  }
+
+  static int strengthOf(String encodedPassword) {
+    try {
+      return Integer.parseInt(encodedPassword.substring(4, 6));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  static int calibrate(long targetP99Millis, int minStrength, int maxStrength, int samples) {
+    // Warm up the JIT so the first measured cost is not penalised
+    BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(minStrength));
+
+    int chosen = -1;
+    for (int cost = minStrength; cost <= maxStrength; cost++) {
+      long p99 = p99Millis(cost, samples);
+      log.info("BCrypt cost {} p99 {} ms (budget {} ms)", cost, p99, targetP99Millis);
+      if (p99 > targetP99Millis) {
+        break;
+      }
+      chosen = cost;
+    }
+    if (chosen < 0) {
+      log.warn("BCrypt cost {} exceeds the latency budget but is the minimum allowed", minStrength);
+      return minStrength;
+    }
+    log.info("Using BCrypt cost {}", chosen);
+    return chosen;
+  }
+
+  private static long p99Millis(int cost, int samples) {
+    long[] durations = new long[samples];
+    for (int i = 0; i < samples; i++) {
+      long start = System.nanoTime();
+      BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(cost));
+      durations[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    Arrays.sort(durations);
+    return durations[(int) Math.ceil(samples * 0.99) - 1];
+  }
+}
@@ -0,0 +1,77 @@
+package com.example.usermanagement.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over 64-bit keys. {@link #mightContain} never misses a key that was
+ * {@link #put}, and wrongly reports an absent one with roughly the configured probability while no
+ * more than the expected number of keys are in it. Keys cannot be removed; rebuild a new filter
+ * instead.
+ *
+ * <p>Safe for concurrent use without locking: bits are only ever set, with a CAS per word.
+ */
+final class BloomFilter {
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+
+  BloomFilter(long expectedKeys, double falsePositiveRate) {
+    long n = Math.max(1, expectedKeys);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+    this.words = new AtomicLongArray(words);
+    this.bits = (long) words * 64;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+  }
+
+  void put(long key) {
+    long hash = mix(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashes; i++) {
+      long bit = index(h1 + i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current = words.get(word);
+      while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        current = words.get(word);
+      }
+    }
+  }
+
+  boolean mightContain(long key) {
+    long hash = mix(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashes; i++) {
+      long bit = index(h1 + i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long bitSize() {
+    return bits;
+  }
+
+  int hashCount() {
+    return hashes;
+  }
+
+  private long index(int combined) {
+    // Kirsch-Mitzenmacher double hashing; flip negative combinations as Guava does
+    return (combined < 0 ? ~combined : combined) % bits;
+  }
+
+  /** The finalizer of MurmurHash3's 64-bit variant, so sequential ids spread over all bits. */
+  static long mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return key;
+  }
+}
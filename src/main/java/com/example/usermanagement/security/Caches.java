@@ -0,0 +1,38 @@
+package com.example.usermanagement.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/** Helpers for caches whose entries are loaded with blocking I/O. */
+final class Caches {
+  private Caches() {}
+
+  /**
+   * Returns the cached value, loading it on the calling thread if absent. Unlike a loading {@code
+   * Cache}, the load runs outside the map's bin lock: a monitor held across a query would pin a
+   * virtual thread to its carrier, and block unrelated keys in the same bin. Concurrent callers for
+   * the key wait on the same load, and invalidating the key mid-load drops its result.
+   */
+  static <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> future = cache.get(key, (k, executor) -> created);
+    if (future == created) {
+      try {
+        created.complete(loader.apply(key));
+      } catch (RuntimeException e) {
+        created.completeExceptionally(e);
+        throw e;
+      }
+    }
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
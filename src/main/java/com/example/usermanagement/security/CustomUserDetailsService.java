@@ -2,17 +2,41 @@ package com.example.usermanagement.security;
 
 import com.example.usermanagement.entity.User;
 import com.example.usermanagement.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+/**
+ * Loads principals for authentication. {@link #loadUserById} runs on every request that carries an
+ * access token, so its results are kept in memory until a {@link UserChangedEvent} for the user
+ * commits or {@code ttl} passes. Hit rate and load latency are published under the {@code
+ * userPrincipals} cache metrics.
+ */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
   private final UserRepository userRepository;
+  private final AsyncCache<Long, UserPrincipal> principals;
+
+  public CustomUserDetailsService(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.user-details-cache.max-size:100000}") long maxSize,
+      @Value("${app.user-details-cache.ttl:10m}") Duration ttl) {
+    this.userRepository = userRepository;
+    this.principals =
+        Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, principals, "userPrincipals");
+  }
 
   @Override
   @Transactional(readOnly = true)
@@ -26,8 +50,15 @@ public class CustomUserDetailsService implements UserDetailsService {
     return UserPrincipal.create(user);
   }
 
-  @Transactional(readOnly = true)
+  /**
+   * Deliberately not transactional: a cache hit must not borrow a connection. Misses are served by
+   * a single repository call, which fetches roles eagerly.
+   */
   public UserDetails loadUserById(Long id) {
+    return Caches.get(principals, id, this::loadPrincipal);
+  }
+
+  private UserPrincipal loadPrincipal(Long id) {
     User user =
         userRepository
             .findById(id)
@@ -35,4 +66,14 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     return UserPrincipal.create(user);
   }
+
+  public void evict(Long id) {
+    principals.synchronous().invalidate(id);
+  }
+
+  // After commit, so a concurrent miss cannot re-cache the row we are about to replace
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    evict(event.userId());
+  }
 }
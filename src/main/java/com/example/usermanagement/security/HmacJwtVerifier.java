@@ -0,0 +1,516 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.service.RoleRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Fast path for the HMAC-signed tokens this application issues itself. It reuses a {@link Mac} and
+ * scratch buffers from a small shared pool, checks the signature without materialising the token
+ * bytes, and reads the claims with a small hand-written reader instead of Jackson.
+ *
+ * <p>The pool is a few slots per core rather than a {@code ThreadLocal}, since with virtual threads
+ * every request runs on a new thread and would set up a fresh {@code Mac} each time. A caller takes
+ * a free scratch from one of the slots its thread id maps to, or clones a new one if they are all
+ * taken, and hands it back afterwards unless those slots have filled up meanwhile.
+ *
+ * <p>{@link #verify} only ever answers "valid": it returns null for anything it does not fully
+ * understand (a different header, escaped strings, {@code nbf}, a bad signature, an expired token,
+ * ...). Callers then fall back to jjwt, which stays the authority on rejections.
+ */
+public final class HmacJwtVerifier {
+  private static final int MAX_TOKEN_LENGTH = 8192;
+  private static final int MAX_NESTING = 16;
+  private static final int PROBES = 4;
+  private static final byte[] BASE64_URL = new byte[128];
+
+  static {
+    Arrays.fill(BASE64_URL, (byte) -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    for (int i = 0; i < alphabet.length(); i++) {
+      BASE64_URL[alphabet.charAt(i)] = (byte) i;
+    }
+  }
+
+  private final String header;
+  private final Mac prototype;
+  private final AtomicReferenceArray<Scratch> pool;
+  private final int mask;
+
+  public HmacJwtVerifier(SecretKey key) {
+    SignatureAlgorithm algorithm = SignatureAlgorithm.forSigningKey(key);
+    if (!algorithm.isHmac()) {
+      throw new IllegalArgumentException("Not an HMAC key: " + algorithm);
+    }
+    // Our tokens are all built by jjwt with this key, so they share this exact header segment
+    String probe = Jwts.builder().setSubject("0").signWith(key, algorithm).compact();
+    this.header = probe.substring(0, probe.indexOf('.'));
+    this.prototype = newMac(key, algorithm);
+    int slots =
+        Integer.highestOneBit(Math.max(PROBES, Runtime.getRuntime().availableProcessors()))
+            * PROBES;
+    this.pool = new AtomicReferenceArray<>(slots);
+    this.mask = slots - 1;
+  }
+
+  private static Mac newMac(SecretKey key, SignatureAlgorithm algorithm) {
+    try {
+      Mac mac = Mac.getInstance(algorithm.getJcaName());
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot initialise " + algorithm.getJcaName(), e);
+    }
+  }
+
+  private Scratch acquire() {
+    int start = (int) Thread.currentThread().threadId();
+    for (int i = 0; i < PROBES; i++) {
+      int slot = (start + i) & mask;
+      Scratch s = pool.get(slot);
+      if (s != null && pool.compareAndSet(slot, s, null)) {
+        return s;
+      }
+    }
+    return new Scratch(newMac());
+  }
+
+  private void release(Scratch s) {
+    int start = (int) Thread.currentThread().threadId();
+    for (int i = 0; i < PROBES; i++) {
+      int slot = (start + i) & mask;
+      if (pool.get(slot) == null && pool.compareAndSet(slot, null, s)) {
+        return;
+      }
+    }
+  }
+
+  /** A copy of the initialised prototype, cheaper than looking the algorithm up and keying it. */
+  private Mac newMac() {
+    try {
+      return (Mac) prototype.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("Cannot copy " + prototype.getAlgorithm(), e);
+    }
+  }
+
+  /** Returns the verified token, or null if the caller should fall back to the full parser. */
+  public VerifiedToken verify(String token) {
+    int length = token.length();
+    int headerEnd = header.length();
+    if (length > MAX_TOKEN_LENGTH
+        || length <= headerEnd
+        || token.charAt(headerEnd) != '.'
+        || !token.startsWith(header)) {
+      return null;
+    }
+    int payloadEnd = token.indexOf('.', headerEnd + 1);
+    if (payloadEnd < 0) {
+      return null;
+    }
+
+    Scratch s = acquire();
+    try {
+      return verify(token, headerEnd, payloadEnd, s);
+    } finally {
+      release(s);
+    }
+  }
+
+  private static VerifiedToken verify(String token, int headerEnd, int payloadEnd, Scratch s) {
+    if (!signatureMatches(token, payloadEnd, s)) {
+      return null;
+    }
+
+    byte[] payload = s.payload(decodedLength(payloadEnd - headerEnd - 1));
+    int payloadLength = decode(token, headerEnd + 1, payloadEnd, payload);
+    if (payloadLength < 0) {
+      return null;
+    }
+    ClaimsReader claims = s.claims;
+    if (!claims.read(payload, payloadLength)
+        || !claims.hasSub
+        || !claims.hasExp
+        || System.currentTimeMillis() > claims.exp * 1000) {
+      return null;
+    }
+
+    return new VerifiedToken(
+        claims.sub,
+        claims.email,
+        claims.roles,
+        claims.hasVer ? claims.ver : null,
+        Instant.ofEpochSecond(claims.exp),
+        claims.jti);
+  }
+
+  private static boolean signatureMatches(String token, int signedLength, Scratch s) {
+    byte[] input = s.input(signedLength);
+    for (int i = 0; i < signedLength; i++) {
+      char c = token.charAt(i);
+      if (c >= 128) {
+        return false;
+      }
+      input[i] = (byte) c;
+    }
+    s.mac.update(input, 0, signedLength);
+    try {
+      s.mac.doFinal(s.expected, 0);
+    } catch (GeneralSecurityException e) {
+      return false;
+    }
+
+    int signatureStart = signedLength + 1;
+    if (decodedLength(token.length() - signatureStart) != s.signature.length) {
+      return false;
+    }
+    return decode(token, signatureStart, token.length(), s.signature) == s.signature.length
+        && MessageDigest.isEqual(s.expected, s.signature);
+  }
+
+  private static int decodedLength(int encodedLength) {
+    return encodedLength % 4 == 1 ? -1 : encodedLength * 3 / 4;
+  }
+
+  /**
+   * Decodes the unpadded base64url characters {@code [from, to)} of {@code src} into {@code dst}.
+   * Returns the number of bytes written, or -1 for anything non-canonical.
+   */
+  static int decode(String src, int from, int to, byte[] dst) {
+    int outLength = decodedLength(to - from);
+    if (outLength < 0 || outLength > dst.length) {
+      return -1;
+    }
+    int bits = 0;
+    int acc = 0;
+    int out = 0;
+    for (int i = from; i < to; i++) {
+      char c = src.charAt(i);
+      int value = c < 128 ? BASE64_URL[c] : -1;
+      if (value < 0) {
+        return -1;
+      }
+      acc = (acc << 6) | value;
+      bits += 6;
+      if (bits >= 8) {
+        bits -= 8;
+        dst[out++] = (byte) (acc >> bits);
+        acc &= (1 << bits) - 1;
+      }
+    }
+    return acc == 0 ? out : -1;
+  }
+
+  private static final class Scratch {
+    final Mac mac;
+    final byte[] expected;
+    final byte[] signature;
+    final ClaimsReader claims = new ClaimsReader();
+    private byte[] input = new byte[512];
+    private byte[] payload = new byte[384];
+
+    Scratch(Mac mac) {
+      this.mac = mac;
+      this.expected = new byte[mac.getMacLength()];
+      this.signature = new byte[mac.getMacLength()];
+    }
+
+    byte[] input(int length) {
+      if (input.length < length) {
+        input = new byte[length];
+      }
+      return input;
+    }
+
+    byte[] payload(int length) {
+      if (payload.length < length) {
+        payload = new byte[Math.max(length, 0)];
+      }
+      return payload;
+    }
+  }
+
+  /**
+   * Reads the top-level members of the claims object that authentication needs and skips the rest.
+   * Only understands what Jackson writes for our own tokens; anything else fails the read.
+   */
+  private static final class ClaimsReader {
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] NBF = ascii("nbf");
+    private static final byte[] EMAIL = ascii(JwtTokenProvider.EMAIL_CLAIM);
+    private static final byte[] ROLES = ascii(JwtTokenProvider.ROLES_CLAIM);
+    private static final byte[] VER = ascii(JwtTokenProvider.TOKEN_VERSION_CLAIM);
+    private static final byte[] JTI = ascii("jti");
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+
+    long sub;
+    boolean hasSub;
+    long exp;
+    boolean hasExp;
+    int ver;
+    boolean hasVer;
+    String email;
+    String jti;
+    List<GrantedAuthority> roles;
+
+    private static byte[] ascii(String s) {
+      return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    boolean read(byte[] buf, int length) {
+      this.buf = buf;
+      this.pos = 0;
+      this.end = length;
+      hasSub = hasExp = hasVer = false;
+      email = jti = null;
+      roles = null;
+
+      skipWhitespace();
+      if (!consume('{')) {
+        return false;
+      }
+      skipWhitespace();
+      if (consume('}')) {
+        return atEnd();
+      }
+      do {
+        skipWhitespace();
+        if (!member()) {
+          return false;
+        }
+        skipWhitespace();
+      } while (consume(','));
+      return consume('}') && atEnd();
+    }
+
+    private boolean member() {
+      if (!consume('"')) {
+        return false;
+      }
+      int keyStart = pos;
+      int keyEnd = plainStringEnd();
+      if (keyEnd < 0) {
+        return false;
+      }
+      pos = keyEnd + 1;
+      skipWhitespace();
+      if (!consume(':')) {
+        return false;
+      }
+      skipWhitespace();
+
+      if (keyIs(keyStart, keyEnd, SUB)) {
+        if (hasSub || !consume('"')) {
+          return false;
+        }
+        hasSub = true;
+        int valueEnd = plainStringEnd();
+        if (valueEnd < 0 || (sub = digits(valueEnd)) < 0) {
+          return false;
+        }
+        pos = valueEnd + 1;
+        return true;
+      }
+      if (keyIs(keyStart, keyEnd, EXP)) {
+        if (hasExp) {
+          return false;
+        }
+        hasExp = true;
+        return (exp = digits(numberEnd())) >= 0;
+      }
+      if (keyIs(keyStart, keyEnd, VER)) {
+        if (hasVer) {
+          return false;
+        }
+        hasVer = true;
+        long value = digits(numberEnd());
+        ver = (int) value;
+        return value >= 0 && value <= Integer.MAX_VALUE;
+      }
+      if (keyIs(keyStart, keyEnd, EMAIL)) {
+        return email == null && (email = string()) != null;
+      }
+      if (keyIs(keyStart, keyEnd, JTI)) {
+        return jti == null && (jti = string()) != null;
+      }
+      if (keyIs(keyStart, keyEnd, ROLES)) {
+        return roles == null && roleArray();
+      }
+      if (keyIs(keyStart, keyEnd, NBF)) {
+        return false;
+      }
+      return skipValue(0);
+    }
+
+    private boolean roleArray() {
+      if (!consume('[')) {
+        return false;
+      }
+      roles = new ArrayList<>(2);
+      skipWhitespace();
+      if (consume(']')) {
+        return true;
+      }
+      do {
+        skipWhitespace();
+        String role = string();
+        if (role == null) {
+          return false;
+        }
+        roles.add(RoleRegistry.authority(role));
+        skipWhitespace();
+      } while (consume(','));
+      return consume(']');
+    }
+
+    /** Reads a string without escape sequences, or returns null. */
+    private String string() {
+      if (!consume('"')) {
+        return null;
+      }
+      int start = pos;
+      int stringEnd = plainStringEnd();
+      if (stringEnd < 0) {
+        return null;
+      }
+      pos = stringEnd + 1;
+      return new String(buf, start, stringEnd - start, StandardCharsets.UTF_8);
+    }
+
+    /** Index of the closing quote of a string starting at {@code pos}, or -1 if it has escapes. */
+    private int plainStringEnd() {
+      for (int i = pos; i < end; i++) {
+        byte b = buf[i];
+        if (b == '"') {
+          return i;
+        }
+        if (b == '\\' || (b >= 0 && b < 0x20)) {
+          return -1;
+        }
+      }
+      return -1;
+    }
+
+    private int numberEnd() {
+      int i = pos;
+      while (i < end && buf[i] >= '0' && buf[i] <= '9') {
+        i++;
+      }
+      return i;
+    }
+
+    /** Parses the non-negative integer in {@code [pos, to)} and moves past it, or returns -1. */
+    private long digits(int to) {
+      if (to == pos || to - pos > 18) {
+        return -1;
+      }
+      long value = 0;
+      for (int i = pos; i < to; i++) {
+        byte b = buf[i];
+        if (b < '0' || b > '9') {
+          return -1;
+        }
+        value = value * 10 + (b - '0');
+      }
+      pos = to;
+      return value;
+    }
+
+    private boolean skipValue(int depth) {
+      if (pos >= end || depth > MAX_NESTING) {
+        return false;
+      }
+      byte b = buf[pos];
+      if (b == '"') {
+        pos++;
+        while (pos < end) {
+          byte c = buf[pos++];
+          if (c == '\\') {
+            pos++;
+          } else if (c == '"') {
+            return true;
+          }
+        }
+        return false;
+      }
+      if (b == '{' || b == '[') {
+        byte close = b == '{' ? (byte) '}' : (byte) ']';
+        pos++;
+        skipWhitespace();
+        if (consume((char) close)) {
+          return true;
+        }
+        do {
+          skipWhitespace();
+          if (b == '{') {
+            if (!skipValue(depth + 1)) {
+              return false;
+            }
+            skipWhitespace();
+            if (!consume(':')) {
+              return false;
+            }
+            skipWhitespace();
+          }
+          if (!skipValue(depth + 1)) {
+            return false;
+          }
+          skipWhitespace();
+        } while (consume(','));
+        return consume((char) close);
+      }
+      int start = pos;
+      while (pos < end && isScalarChar(buf[pos])) {
+        pos++;
+      }
+      return pos > start;
+    }
+
+    private static boolean isScalarChar(byte b) {
+      return (b >= '0' && b <= '9')
+          || (b >= 'a' && b <= 'z')
+          || b == '-'
+          || b == '+'
+          || b == '.'
+          || b == 'E';
+    }
+
+    private boolean keyIs(int start, int keyEnd, byte[] name) {
+      return Arrays.equals(buf, start, keyEnd, name, 0, name.length);
+    }
+
+    private void skipWhitespace() {
+      while (pos < end
+          && (buf[pos] == ' ' || buf[pos] == '\n' || buf[pos] == '\r' || buf[pos] == '\t')) {
+        pos++;
+      }
+    }
+
+    private boolean consume(char c) {
+      if (pos < end && buf[pos] == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean atEnd() {
+      return pos == end;
+    }
+  }
+}
@@ -5,7 +5,9 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,8 +18,13 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-  private final JwtTokenProvider tokenProvider;
+  private final VerifiedTokenCache verifiedTokenCache;
   private final CustomUserDetailsService userDetailsService;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final AccessTokenRevocations accessTokenRevocations;
+
+  @Value("${app.jwt.self-contained-principal:false}")
+  private boolean selfContainedPrincipal;
 
   @Override
   protected void doFilterInternal(
@@ -26,13 +33,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     try {
       String jwt = getJwtFromRequest(request);
 
-      if (jwt != null && tokenProvider.validateToken(jwt)) {
-        Long userId = tokenProvider.getUserIdFromToken(jwt);
-        UserDetails userDetails = userDetailsService.loadUserById(userId);
+      Optional<VerifiedToken> token =
+          jwt != null ? verifiedTokenCache.verify(jwt) : Optional.empty();
+
+      UserDetails userDetails =
+          token
+              .filter(t -> !accessTokenRevocations.isRevoked(t.jti()))
+              .map(this::resolvePrincipal)
+              .orElse(null);
 
+      if (userDetails != null) {
+        // The verified token as credentials, so e.g. logout can revoke it
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
-                userDetails, null, userDetails.getAuthorities());
+                userDetails, token.get(), userDetails.getAuthorities());
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -44,6 +58,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  /**
+   * Builds the principal straight from the token claims in self-contained mode, or loads it from
+   * the database. Returns null when the token has been revoked by a token-version bump.
+   */
+  private UserDetails resolvePrincipal(VerifiedToken token) {
+    if (selfContainedPrincipal && token.hasPrincipalClaims()) {
+      return tokenVersionRegistry.isCurrent(token.userId(), token.tokenVersion())
+          ? UserPrincipal.create(token)
+          : null;
+    }
+    UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserById(token.userId());
+    return token.tokenVersion() == null || token.tokenVersion() == principal.getTokenVersion()
+        ? principal
+        : null;
+  }
+
   private String getJwtFromRequest(HttpServletRequest request) {
     String bearerToken = request.getHeader("Authorization");
     if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -1,29 +1,89 @@
 package com.example.usermanagement.security;
 
+import com.example.usermanagement.service.RoleRegistry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtTokenProvider {
-  private final Key key;
+  static final String EMAIL_CLAIM = "email";
+  static final String ROLES_CLAIM = "roles";
+  static final String TOKEN_VERSION_CLAIM = "ver";
+  static final String FAMILY_CLAIM = "fid";
+  static final String TYPE_CLAIM = "typ";
+  static final String REFRESH_TYPE = "refresh";
+
+  private final SecretKey key;
+  private final SecretKey refreshKey;
+  private final JwtParser jwtParser;
+  private final JwtParser refreshParser;
+  private final HmacJwtVerifier hmacVerifier;
+  private final SigningKeyManager signingKeyManager;
 
   @Getter private final long accessTokenExpiration;
 
   @Getter private final long refreshTokenExpiration;
 
+  @Getter private final boolean selfContainedPrincipal;
+
+  public JwtTokenProvider(
+      String jwtSecret, long accessTokenExpiration, long refreshTokenExpiration) {
+    this(jwtSecret, accessTokenExpiration, refreshTokenExpiration, false);
+  }
+
+  public JwtTokenProvider(
+      String jwtSecret,
+      long accessTokenExpiration,
+      long refreshTokenExpiration,
+      boolean selfContainedPrincipal) {
+    this(
+        jwtSecret,
+        accessTokenExpiration,
+        refreshTokenExpiration,
+        selfContainedPrincipal,
+        Optional.empty());
+  }
+
+  /**
+   * When a {@link SigningKeyManager} is present, access tokens are signed with its current ES256
+   * key and carry a {@code kid} header. HMAC-signed tokens issued before a switch keep verifying
+   * until they expire, and are rejected from then on.
+   */
+  @Autowired
   public JwtTokenProvider(
       @Value("${app.jwt.secret}") String jwtSecret,
       @Value("${app.jwt.access-token-expiration}") long accessTokenExpiration,
-      @Value("${app.jwt.refresh-token-expiration}") long refreshTokenExpiration) {
+      @Value("${app.jwt.refresh-token-expiration}") long refreshTokenExpiration,
+      @Value("${app.jwt.self-contained-principal:false}") boolean selfContainedPrincipal,
+      Optional<SigningKeyManager> signingKeyManager) {
     this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    this.refreshKey = deriveKey(key, REFRESH_TYPE);
+    this.refreshParser =
+        Jwts.parserBuilder().setSigningKey(refreshKey).require(TYPE_CLAIM, REFRESH_TYPE).build();
+    this.signingKeyManager = signingKeyManager.orElse(null);
+    this.jwtParser = Jwts.parserBuilder().setSigningKeyResolver(new KeyResolver()).build();
+    this.hmacVerifier = new HmacJwtVerifier(key);
     this.accessTokenExpiration = accessTokenExpiration;
     this.refreshTokenExpiration = refreshTokenExpiration;
+    this.selfContainedPrincipal = selfContainedPrincipal;
   }
 
   public String generateAccessToken(Authentication authentication) {
@@ -32,38 +92,144 @@ public class JwtTokenProvider {
     Date now = new Date();
     Date expiryDate = new Date(now.getTime() + accessTokenExpiration);
 
+    JwtBuilder builder =
+        Jwts.builder()
+            .setSubject(Long.toString(userPrincipal.getId()))
+            .setId(UUID.randomUUID().toString())
+            .setIssuedAt(new Date())
+            .setExpiration(expiryDate)
+            .claim(TOKEN_VERSION_CLAIM, userPrincipal.getTokenVersion());
+
+    if (selfContainedPrincipal) {
+      builder
+          .claim(EMAIL_CLAIM, userPrincipal.getEmail())
+          .claim(
+              ROLES_CLAIM,
+              userPrincipal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    if (signingKeyManager != null) {
+      return signingKeyManager.sign(builder);
+    }
+
+    return builder.signWith(key).compact();
+  }
+
+  /**
+   * Issues a signed, self-describing refresh token for a session family. It is signed with a key
+   * derived from the JWT secret, so it can never pass as an access token, nor the reverse.
+   */
+  public String generateRefreshToken(Long userId, UUID familyId, Instant expiresAt) {
     return Jwts.builder()
-        .setSubject(Long.toString(userPrincipal.getId()))
+        .setSubject(Long.toString(userId))
+        .setId(UUID.randomUUID().toString())
+        .claim(FAMILY_CLAIM, familyId.toString())
+        .claim(TYPE_CLAIM, REFRESH_TYPE)
         .setIssuedAt(new Date())
-        .setExpiration(expiryDate)
-        .signWith(key)
+        .setExpiration(Date.from(expiresAt))
+        .signWith(refreshKey)
         .compact();
   }
 
-  public String generateRefreshToken(Long userId) {
-    Date now = new Date();
-    Date expiryDate = new Date(now.getTime() + refreshTokenExpiration);
+  /** Verifies a token from {@link #generateRefreshToken}, or returns empty. */
+  public Optional<RefreshTokenClaims> parseRefreshToken(String token) {
+    try {
+      Claims claims = refreshParser.parseClaimsJws(token).getBody();
+      return Optional.of(
+          new RefreshTokenClaims(
+              Long.parseLong(claims.getSubject()),
+              UUID.fromString(claims.get(FAMILY_CLAIM, String.class)),
+              claims.getId(),
+              claims.getIssuedAt().toInstant(),
+              claims.getExpiration().toInstant()));
+    } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+      return Optional.empty();
+    }
+  }
 
-    return Jwts.builder()
-        .setSubject(Long.toString(userId))
-        .setIssuedAt(now)
-        .setExpiration(expiryDate)
-        .signWith(key)
-        .compact();
+  private static SecretKey deriveKey(SecretKey key, String purpose) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(key);
+      return Keys.hmacShaKeyFor(mac.doFinal(purpose.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot derive the " + purpose + " key", e);
+    }
+  }
+
+  /**
+   * Parses and verifies a token once, returning its subject and expiry, or empty if the token is
+   * malformed, tampered with or expired.
+   */
+  public Optional<VerifiedToken> verifyToken(String token) {
+    VerifiedToken verified = acceptsHmacTokens() ? hmacVerifier.verify(token) : null;
+    if (verified != null) {
+      return Optional.of(verified);
+    }
+
+    try {
+      return Optional.of(toVerifiedToken(jwtParser.parseClaimsJws(token).getBody()));
+    } catch (JwtException | IllegalArgumentException | ClassCastException e) {
+      return Optional.empty();
+    }
+  }
+
+  private VerifiedToken toVerifiedToken(Claims claims) {
+    Long userId = Long.parseLong(claims.getSubject());
+    List<?> roles = claims.get(ROLES_CLAIM, List.class);
+    Collection<? extends GrantedAuthority> authorities =
+        roles == null
+            ? null
+            : roles.stream().map(role -> RoleRegistry.authority((String) role)).toList();
+
+    return new VerifiedToken(
+        userId,
+        claims.get(EMAIL_CLAIM, String.class),
+        authorities,
+        claims.get(TOKEN_VERSION_CLAIM, Integer.class),
+        claims.getExpiration().toInstant(),
+        claims.getId());
   }
 
   public Long getUserIdFromToken(String token) {
-    Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    VerifiedToken verified = acceptsHmacTokens() ? hmacVerifier.verify(token) : null;
+    if (verified != null) {
+      return verified.userId();
+    }
+
+    Claims claims = jwtParser.parseClaimsJws(token).getBody();
 
     return Long.parseLong(claims.getSubject());
   }
 
   public boolean validateToken(String token) {
-    try {
-      Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-      return true;
-    } catch (JwtException | IllegalArgumentException e) {
-      return false;
+    return verifyToken(token).isPresent();
+  }
+
+  private boolean acceptsHmacTokens() {
+    return signingKeyManager == null || signingKeyManager.acceptsHmacTokens();
+  }
+
+  /**
+   * Picks the HMAC secret for tokens without a {@code kid} while those are accepted, else the
+   * matching ES256 key.
+   */
+  private class KeyResolver extends SigningKeyResolverAdapter {
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+      String kid = header.getKeyId();
+      if (kid == null) {
+        if (!acceptsHmacTokens()) {
+          throw new UnsupportedJwtException("Tokens without a key id are no longer accepted");
+        }
+        return key;
+      }
+      PublicKey publicKey =
+          signingKeyManager != null ? signingKeyManager.verificationKey(kid) : null;
+      if (publicKey == null) {
+        throw new UnsupportedJwtException("Unknown signing key " + kid);
+      }
+      return publicKey;
     }
   }
 }
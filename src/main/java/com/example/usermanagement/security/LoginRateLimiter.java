@@ -0,0 +1,145 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttles login and signup attempts per client IP and per account email before any password
+ * hashing or database work happens.
+ *
+ * <p>Each key gets a token bucket holding {@code capacity} attempts that refills evenly over {@code
+ * refill-period}. Buckets are lock-free: the whole state is one {@link AtomicLong} updated by CAS
+ * (the GCRA formulation of a token bucket). Keys idle for {@code idle-timeout} are dropped, and at
+ * most {@code max-keys} are kept per dimension, so a spray of random IPs or emails cannot grow the
+ * table without bound.
+ */
+@Component
+public class LoginRateLimiter {
+  private final boolean enabled;
+  private final Limit ipLimit;
+  private final Limit emailLimit;
+  private final Cache<String, Bucket> ipBuckets;
+  private final Cache<String, Bucket> emailBuckets;
+  private final Counter ipRejections;
+  private final Counter emailRejections;
+  private final LongSupplier nanoClock;
+
+  @Autowired
+  public LoginRateLimiter(
+      MeterRegistry meterRegistry,
+      @Value("${app.rate-limit.enabled:true}") boolean enabled,
+      @Value("${app.rate-limit.ip.capacity:20}") int ipCapacity,
+      @Value("${app.rate-limit.ip.refill-period:60000}") long ipRefillPeriod,
+      @Value("${app.rate-limit.email.capacity:5}") int emailCapacity,
+      @Value("${app.rate-limit.email.refill-period:60000}") long emailRefillPeriod,
+      @Value("${app.rate-limit.max-keys:100000}") long maxKeys,
+      @Value("${app.rate-limit.idle-timeout:600000}") long idleTimeout) {
+    this(
+        meterRegistry,
+        enabled,
+        new Limit(ipCapacity, Duration.ofMillis(ipRefillPeriod)),
+        new Limit(emailCapacity, Duration.ofMillis(emailRefillPeriod)),
+        maxKeys,
+        Duration.ofMillis(idleTimeout),
+        System::nanoTime);
+  }
+
+  LoginRateLimiter(
+      MeterRegistry meterRegistry,
+      boolean enabled,
+      Limit ipLimit,
+      Limit emailLimit,
+      long maxKeys,
+      Duration idleTimeout,
+      LongSupplier nanoClock) {
+    this.enabled = enabled;
+    this.ipLimit = ipLimit;
+    this.emailLimit = emailLimit;
+    this.ipBuckets = buckets(maxKeys, idleTimeout);
+    this.emailBuckets = buckets(maxKeys, idleTimeout);
+    this.ipRejections = rejections(meterRegistry, "ip");
+    this.emailRejections = rejections(meterRegistry, "email");
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Takes one attempt from the IP bucket and, when an email is given, from that account's bucket.
+   *
+   * @throws TooManyRequestsException if either bucket is empty
+   */
+  public void acquire(String ip, String email) {
+    if (!enabled) {
+      return;
+    }
+    long now = nanoClock.getAsLong();
+    if (ip != null) {
+      acquire(ipBuckets, ip, ipLimit, now, ipRejections);
+    }
+    if (email != null) {
+      acquire(
+          emailBuckets, email.trim().toLowerCase(Locale.ROOT), emailLimit, now, emailRejections);
+    }
+  }
+
+  private static void acquire(
+      Cache<String, Bucket> buckets, String key, Limit limit, long now, Counter rejections) {
+    long waitNanos = buckets.get(key, k -> new Bucket(now)).tryAcquire(limit, now);
+    if (waitNanos > 0) {
+      rejections.increment();
+      // Rounded up, so a client that waits as told is not throttled again
+      throw new TooManyRequestsException((waitNanos + 999_999_999) / 1_000_000_000);
+    }
+  }
+
+  private static Cache<String, Bucket> buckets(long maxKeys, Duration idleTimeout) {
+    return Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleTimeout).build();
+  }
+
+  private static Counter rejections(MeterRegistry meterRegistry, String key) {
+    return Counter.builder("auth.rate_limit.rejected").tag("key", key).register(meterRegistry);
+  }
+
+  /** {@code capacity} attempts per {@code refillPeriod}, all of which may be used at once. */
+  record Limit(long emissionIntervalNanos, long burstToleranceNanos) {
+    Limit(int capacity, Duration refillPeriod) {
+      this(refillPeriod.toNanos() / capacity, refillPeriod.toNanos());
+    }
+  }
+
+  /**
+   * Stores the time at which the bucket will be full again. An attempt is allowed while that time
+   * is less than one refill period ahead, and pushes it one emission interval further out.
+   */
+  static final class Bucket {
+    private final AtomicLong fullAt;
+
+    Bucket(long now) {
+      this.fullAt = new AtomicLong(now);
+    }
+
+    /** Returns 0 if the attempt is allowed, else how long until one will be. */
+    long tryAcquire(Limit limit, long now) {
+      while (true) {
+        long current = fullAt.get();
+        long next = Math.max(current, now) + limit.emissionIntervalNanos();
+        long excess = next - now - limit.burstToleranceNanos();
+        if (excess > 0) {
+          return excess;
+        }
+        if (fullAt.compareAndSet(current, next)) {
+          return 0;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.example.usermanagement.security;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** The claims of a signature-checked, unexpired stateless refresh token. */
+public record RefreshTokenClaims(
+    Long userId, UUID familyId, String jti, Instant issuedAt, Instant expiresAt) {}
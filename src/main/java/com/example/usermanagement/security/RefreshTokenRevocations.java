@@ -0,0 +1,182 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.repository.RefreshTokenRevocationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Revoked session families, for checking stateless refresh tokens without a query. A Bloom filter
+ * answers the common case, a token that was never revoked, with a few memory reads; its rare
+ * positives are confirmed against the exact set behind it.
+ *
+ * <p>Revocations are written to {@code refresh_token_revocations} and apply on this node at once.
+ * Other nodes pick them up within {@code poll-interval} of their commit, however long the writing
+ * transaction took. Entries are forgotten, and the filter is rebuilt, once every token of the
+ * family has expired.
+ */
+@Component
+@Slf4j
+public class RefreshTokenRevocations {
+  /**
+   * Unexpired revocations written by transactions from the given id on, each with the oldest
+   * transaction still running when the query took its snapshot. Any revocation the query could not
+   * see was written by that transaction or a later one, so the next read starts there. The join
+   * returns that transaction on its own when there are no rows.
+   */
+  private static final String SELECT_REVOCATIONS =
+      "SELECT pg_snapshot_xmin(pg_current_snapshot())::text AS horizon, r.family_id,"
+          + " r.expires_at FROM (SELECT 1) s LEFT JOIN refresh_token_revocations r"
+          + " ON r.xid >= CAST(? AS xid8) AND r.expires_at > ?";
+
+  private static final String INSERT_REVOCATIONS =
+      "INSERT INTO refresh_token_revocations (family_id, revoked_at, expires_at)"
+          + " SELECT unnest(?), ?, ? ON CONFLICT (family_id) DO NOTHING";
+
+  private final RefreshTokenRevocationRepository revocationRepository;
+  private final JdbcTemplate jdbcTemplate;
+  @Getter private final boolean enabled;
+  private final Duration refreshTokenExpiration;
+  private final long expectedEntries;
+  private final double falsePositiveRate;
+  private final Map<UUID, Instant> revoked = new ConcurrentHashMap<>();
+
+  private volatile BloomFilter filter;
+  private volatile long horizon;
+
+  public RefreshTokenRevocations(
+      RefreshTokenRevocationRepository revocationRepository,
+      JdbcTemplate jdbcTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${app.refresh-tokens.stateless:false}") boolean enabled,
+      @Value("${app.jwt.refresh-token-expiration}") long refreshTokenExpiration,
+      @Value("${app.refresh-tokens.revocations.expected-entries:100000}") long expectedEntries,
+      @Value("${app.refresh-tokens.revocations.false-positive-rate:0.01}")
+          double falsePositiveRate) {
+    this.revocationRepository = revocationRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.enabled = enabled;
+    this.refreshTokenExpiration = Duration.ofMillis(refreshTokenExpiration);
+    this.expectedEntries = expectedEntries;
+    this.falsePositiveRate = falsePositiveRate;
+    this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    Gauge.builder("refresh_tokens.revocations", revoked, Map::size)
+        .description("Revoked session families held in memory")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  public void load() {
+    if (enabled) {
+      horizon = read(0);
+      log.info("Loaded {} refresh token revocations", revoked.size());
+    }
+  }
+
+  public boolean isRevoked(UUID familyId) {
+    return filter.mightContain(key(familyId)) && revoked.containsKey(familyId);
+  }
+
+  /** Rejects the family's stateless refresh tokens from now on; a no-op unless stateless. */
+  @Transactional
+  public void revoke(UUID familyId) {
+    if (enabled) {
+      Instant now = Instant.now();
+      Instant expiresAt = now.plus(refreshTokenExpiration);
+      revocationRepository.insert(familyId, now, expiresAt);
+      add(familyId, expiresAt);
+    }
+  }
+
+  /** Like {@link #revoke}, for any number of families in one statement. */
+  @Transactional
+  public void revokeAll(Collection<UUID> familyIds) {
+    if (enabled && !familyIds.isEmpty()) {
+      Instant now = Instant.now();
+      Instant expiresAt = now.plus(refreshTokenExpiration);
+      jdbcTemplate.update(
+          INSERT_REVOCATIONS,
+          ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", familyIds.toArray()));
+            ps.setTimestamp(2, Timestamp.from(now));
+            ps.setTimestamp(3, Timestamp.from(expiresAt));
+          });
+      familyIds.forEach(familyId -> add(familyId, expiresAt));
+    }
+  }
+
+  /**
+   * Picks up revocations made by other nodes. The scheduler pool has threads to spare for this
+   * while bulk jobs such as the token reaper run, so {@code poll-interval} holds throughout.
+   */
+  @Scheduled(
+      fixedDelayString = "${app.refresh-tokens.revocations.poll-interval:5000}",
+      initialDelayString = "${app.refresh-tokens.revocations.poll-interval:5000}")
+  public void poll() {
+    if (enabled) {
+      horizon = read(horizon);
+    }
+  }
+
+  /** Adds the revocations of transactions from {@code since} on; returns where to read next. */
+  private long read(long since) {
+    Long next =
+        jdbcTemplate.query(
+            SELECT_REVOCATIONS,
+            rs -> {
+              long xmin = since;
+              while (rs.next()) {
+                xmin = Long.parseLong(rs.getString("horizon"));
+                UUID familyId = rs.getObject("family_id", UUID.class);
+                if (familyId != null) {
+                  add(familyId, rs.getTimestamp("expires_at").toInstant());
+                }
+              }
+              return xmin;
+            },
+            Long.toString(since),
+            Timestamp.from(Instant.now()));
+    return next == null ? since : next;
+  }
+
+  /** Forgets families whose tokens have all expired, and rebuilds the filter without them. */
+  @Scheduled(
+      fixedDelayString = "${app.refresh-tokens.revocations.purge-interval:3600000}",
+      initialDelayString = "${app.refresh-tokens.revocations.purge-interval:3600000}")
+  public void purge() {
+    if (enabled) {
+      Instant now = Instant.now();
+      revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+      BloomFilter rebuilt = new BloomFilter(expectedEntries, falsePositiveRate);
+      revoked.keySet().forEach(familyId -> rebuilt.put(key(familyId)));
+      filter = rebuilt;
+      // Families revoked while the first pass ran may only be in the old filter
+      revoked.keySet().forEach(familyId -> rebuilt.put(key(familyId)));
+      revocationRepository.deleteExpired(now);
+    }
+  }
+
+  private void add(UUID familyId, Instant expiresAt) {
+    // The exact set first, so a filter hit is never contradicted by it
+    revoked.merge(familyId, expiresAt, (a, b) -> a.isAfter(b) ? a : b);
+    filter.put(key(familyId));
+  }
+
+  private static long key(UUID familyId) {
+    return familyId.getMostSignificantBits() ^ familyId.getLeastSignificantBits();
+  }
+}
@@ -0,0 +1,318 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.entity.SigningKey;
+import com.example.usermanagement.repository.SigningKeyRepository;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Owns the ES256 key pairs used to sign access tokens when {@code app.jwt.signing-algorithm} is
+ * {@code ES256}. Keys live in {@code jwt_signing_keys} so every node signs with and accepts the
+ * same set, and are rotated on a schedule without restarts.
+ *
+ * <p>A new key is published in the JWKS for {@code publish-ahead} before any node signs with it, so
+ * downstream services have refreshed their cached key sets by the time they first see its {@code
+ * kid}. A replaced key stays published until the last token it signed has expired.
+ *
+ * <p>Tokens signed with the shared secret, issued before the switch to ES256, are only accepted
+ * until the last of them has expired; see {@link #acceptsHmacTokens}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.signing-algorithm", havingValue = "ES256")
+@Slf4j
+public class SigningKeyManager {
+  static final String ALGORITHM = "ES256";
+  private static final long ROTATION_LOCK_ID = 0x6a776b73L;
+  private static final int GCM_IV_LENGTH = 12;
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final SigningKeyRepository signingKeyRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final SecretKey wrappingKey;
+  private final Duration rotationInterval;
+  private final Duration publishAhead;
+  private final Duration accessTokenExpiration;
+
+  private volatile KeySet keySet = KeySet.EMPTY;
+
+  public SigningKeyManager(
+      SigningKeyRepository signingKeyRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.jwt.secret}") String jwtSecret,
+      @Value("${app.jwt.access-token-expiration}") long accessTokenExpiration,
+      @Value("${app.jwt.signing-keys.rotation-interval:604800000}") long rotationInterval,
+      @Value("${app.jwt.signing-keys.publish-ahead:3600000}") long publishAhead) {
+    this.signingKeyRepository = signingKeyRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.wrappingKey = deriveWrappingKey(jwtSecret);
+    this.accessTokenExpiration = Duration.ofMillis(accessTokenExpiration);
+    this.rotationInterval = Duration.ofMillis(rotationInterval);
+    this.publishAhead = Duration.ofMillis(publishAhead);
+  }
+
+  @PostConstruct
+  @Scheduled(
+      fixedDelayString = "${app.jwt.signing-keys.refresh-interval:60000}",
+      initialDelayString = "${app.jwt.signing-keys.refresh-interval:60000}")
+  public void refresh() {
+    Instant now = Instant.now();
+    transactionTemplate.executeWithoutResult(status -> rotateIfDue(now));
+    keySet = load(now);
+  }
+
+  public String signingKeyId() {
+    return currentKeySet().signingKid();
+  }
+
+  /** Sets the {@code kid} header and signs, using one key set so the two always match. */
+  public String sign(JwtBuilder builder) {
+    KeySet current = currentKeySet();
+    return builder
+        .setHeaderParam(JwsHeader.KEY_ID, current.signingKid())
+        .signWith(current.signingKey(), SignatureAlgorithm.ES256)
+        .compact();
+  }
+
+  /** The public key for a {@code kid} header, or null if it is unknown or already retired. */
+  public PublicKey verificationKey(String kid) {
+    return keySet.verificationKeys().get(kid);
+  }
+
+  /**
+   * Whether tokens without a {@code kid}, signed with the shared secret, are still accepted. They
+   * are for one token lifetime after the oldest key was created, plus {@code publish-ahead} for
+   * nodes still signing with the secret during a rolling switch, and never again after that. A key
+   * is only deleted once its successor's own window is over, so the oldest remaining key never
+   * reopens it.
+   */
+  public boolean acceptsHmacTokens() {
+    return Instant.now().isBefore(keySet.hmacAcceptedUntil());
+  }
+
+  /** The published keys as RFC 7517 JWK objects. */
+  public List<Map<String, Object>> jwks() {
+    return keySet.jwks();
+  }
+
+  private KeySet currentKeySet() {
+    KeySet current = keySet;
+    if (current.signingKey() == null) {
+      throw new IllegalStateException("No JWT signing key is available");
+    }
+    return current;
+  }
+
+  private void rotateIfDue(Instant now) {
+    List<SigningKey> stored = signingKeyRepository.findAllByOrderByCreatedAtDesc();
+    if (!stored.isEmpty() && stored.get(0).getCreatedAt().isAfter(now.minus(rotationInterval))) {
+      return;
+    }
+    // Another node is rotating right now; we pick its key up on the next reload
+    if (!signingKeyRepository.tryAdvisoryXactLock(ROTATION_LOCK_ID)) {
+      return;
+    }
+    stored = signingKeyRepository.findAllByOrderByCreatedAtDesc();
+    if (!stored.isEmpty() && stored.get(0).getCreatedAt().isAfter(now.minus(rotationInterval))) {
+      return;
+    }
+
+    SigningKey created = generate(now);
+    signingKeyRepository.save(created);
+    log.info("Created JWT signing key {}", created.getKid());
+
+    List<SigningKey> expired = new ArrayList<>();
+    for (int i = 1; i < stored.size(); i++) {
+      if (!retiredAt(stored.get(i - 1)).isAfter(now)) {
+        expired.add(stored.get(i));
+      }
+    }
+    signingKeyRepository.deleteAll(expired);
+  }
+
+  /** When the last token signed by the key before {@code successor} has expired. */
+  private Instant retiredAt(SigningKey successor) {
+    return successor.getCreatedAt().plus(publishAhead).plus(accessTokenExpiration);
+  }
+
+  private KeySet load(Instant now) {
+    List<SigningKey> stored = signingKeyRepository.findAllByOrderByCreatedAtDesc();
+    if (stored.isEmpty()) {
+      return KeySet.EMPTY;
+    }
+
+    // Sign with the newest key that has been published long enough, or the oldest one on first boot
+    SigningKey signing = stored.get(stored.size() - 1);
+    for (SigningKey candidate : stored) {
+      if (!candidate.getCreatedAt().isAfter(now.minus(publishAhead))) {
+        signing = candidate;
+        break;
+      }
+    }
+
+    Map<String, PublicKey> verificationKeys = new HashMap<>();
+    List<Map<String, Object>> jwks = new ArrayList<>();
+    for (int i = 0; i < stored.size(); i++) {
+      SigningKey key = stored.get(i);
+      if (i > 0 && !retiredAt(stored.get(i - 1)).isAfter(now)) {
+        break;
+      }
+      ECPublicKey publicKey = decodePublicKey(key.getPublicKey());
+      verificationKeys.put(key.getKid(), publicKey);
+      jwks.add(toJwk(key.getKid(), publicKey));
+    }
+
+    return new KeySet(
+        signing.getKid(),
+        decodePrivateKey(signing.getPrivateKey()),
+        Collections.unmodifiableMap(verificationKeys),
+        Collections.unmodifiableList(jwks),
+        retiredAt(stored.get(stored.size() - 1)));
+  }
+
+  private SigningKey generate(Instant now) {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec("secp256r1"), RANDOM);
+      KeyPair keyPair = generator.generateKeyPair();
+      ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+
+      return SigningKey.builder()
+          .kid(thumbprint(publicKey))
+          .algorithm(ALGORITHM)
+          .publicKey(publicKey.getEncoded())
+          .privateKey(encrypt(keyPair.getPrivate().getEncoded()))
+          .createdAt(now)
+          .build();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot generate JWT signing key", e);
+    }
+  }
+
+  private static Map<String, Object> toJwk(String kid, ECPublicKey publicKey) {
+    Map<String, Object> jwk = new LinkedHashMap<>();
+    jwk.put("kty", "EC");
+    jwk.put("crv", "P-256");
+    jwk.put("use", "sig");
+    jwk.put("alg", ALGORITHM);
+    jwk.put("kid", kid);
+    jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+    jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+    return jwk;
+  }
+
+  /** RFC 7638 JWK thumbprint, so a key's id is derived from the key itself. */
+  private static String thumbprint(ECPublicKey publicKey) throws GeneralSecurityException {
+    String canonical =
+        "{\"crv\":\"P-256\",\"kty\":\"EC\",\"x\":\""
+            + coordinate(publicKey.getW().getAffineX())
+            + "\",\"y\":\""
+            + coordinate(publicKey.getW().getAffineY())
+            + "\"}";
+    byte[] hash =
+        MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+  }
+
+  private static String coordinate(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] fixed = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+  }
+
+  private static ECPublicKey decodePublicKey(byte[] encoded) {
+    try {
+      return (ECPublicKey)
+          KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(encoded));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot decode JWT verification key", e);
+    }
+  }
+
+  private PrivateKey decodePrivateKey(byte[] encrypted) {
+    try {
+      return KeyFactory.getInstance("EC")
+          .generatePrivate(new PKCS8EncodedKeySpec(decrypt(encrypted)));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot decode JWT signing key", e);
+    }
+  }
+
+  private static SecretKey deriveWrappingKey(String jwtSecret) {
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256")
+              .digest(("jwt-signing-keys:" + jwtSecret).getBytes(StandardCharsets.UTF_8));
+      return new SecretKeySpec(hash, "AES");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private byte[] encrypt(byte[] plaintext) throws GeneralSecurityException {
+    byte[] iv = new byte[GCM_IV_LENGTH];
+    RANDOM.nextBytes(iv);
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.ENCRYPT_MODE, wrappingKey, new GCMParameterSpec(128, iv));
+    byte[] ciphertext = cipher.doFinal(plaintext);
+    return ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array();
+  }
+
+  private byte[] decrypt(byte[] encrypted) throws GeneralSecurityException {
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(
+        Cipher.DECRYPT_MODE,
+        wrappingKey,
+        new GCMParameterSpec(128, Arrays.copyOfRange(encrypted, 0, GCM_IV_LENGTH)));
+    return cipher.doFinal(encrypted, GCM_IV_LENGTH, encrypted.length - GCM_IV_LENGTH);
+  }
+
+  private record KeySet(
+      String signingKid,
+      PrivateKey signingKey,
+      Map<String, PublicKey> verificationKeys,
+      List<Map<String, Object>> jwks,
+      Instant hmacAcceptedUntil) {
+    // Nothing can be signed yet either; the first refresh creates a key
+    static final KeySet EMPTY = new KeySet(null, null, Map.of(), List.of(), Instant.MAX);
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.usermanagement.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digests of opaque tokens for storage. Refresh tokens are random, so an unsalted SHA-256 is enough
+ * to keep a leaked table from yielding usable tokens.
+ */
+public final class TokenDigest {
+  private TokenDigest() {}
+
+  /** SHA-256 of the token's UTF-8 bytes; matches {@code sha256(convert_to(token, 'UTF8'))}. */
+  public static byte[] sha256(String token) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
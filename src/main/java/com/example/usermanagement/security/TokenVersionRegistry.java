@@ -0,0 +1,73 @@
+package com.example.usermanagement.security;
+
+import com.example.usermanagement.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tracks the current token version of each user. Self-contained access tokens carry the version
+ * they were issued with, and bumping the version revokes every token issued before it.
+ *
+ * <p>Versions are read through a small in-memory table, so validating a token costs one query per
+ * user per {@code ttl} rather than one per request. Bumps on other nodes evict the cached version
+ * as soon as their notification arrives; the TTL only matters if one is lost.
+ */
+@Component
+public class TokenVersionRegistry {
+  private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final AsyncCache<Long, Integer> versions;
+
+  public TokenVersionRegistry(
+      UserRepository userRepository,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${app.jwt.token-version-cache.max-size:100000}") long maxSize,
+      @Value("${app.jwt.token-version-cache.ttl:60s}") Duration ttl) {
+    this.userRepository = userRepository;
+    this.eventPublisher = eventPublisher;
+    this.versions = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).buildAsync();
+  }
+
+  public boolean isCurrent(Long userId, int tokenVersion) {
+    Integer current =
+        Caches.get(versions, userId, id -> userRepository.findTokenVersionById(id).orElse(null));
+    return current != null && current == tokenVersion;
+  }
+
+  /**
+   * Invalidates every access token issued to the user so far, e.g. on logout or role change, and
+   * any cached principal built before the bump.
+   */
+  @Transactional
+  public void revoke(Long userId) {
+    userRepository.incrementTokenVersion(userId);
+    versions.synchronous().invalidate(userId);
+    // A concurrent request may have re-read the old version before our update committed
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            versions.synchronous().invalidate(userId);
+          }
+        });
+    eventPublisher.publishEvent(new UserChangedEvent(userId));
+  }
+
+  /**
+   * Drops cached versions bumped elsewhere: in bulk by an admin, or on other nodes as relayed by
+   * {@link AccessTokenRevocations}.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    versions.synchronous().invalidate(event.userId());
+  }
+}
@@ -0,0 +1,14 @@
+package com.example.usermanagement.security;
+
+/**
+ * Published whenever something a {@link UserPrincipal} is built from changes: profile fields, roles
+ * or the token version. Listeners run after the surrounding transaction commits. Local events are
+ * relayed to the other nodes by {@link AccessTokenRevocations}, which republishes them there with
+ * {@code remote} set.
+ */
+public record UserChangedEvent(Long userId, boolean remote) {
+
+  public UserChangedEvent(Long userId) {
+    this(userId, false);
+  }
+}
@@ -1,13 +1,12 @@
 package com.example.usermanagement.security;
 
 import com.example.usermanagement.entity.User;
+import com.example.usermanagement.service.RoleRegistry;
 import java.util.Collection;
 import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
@@ -19,14 +18,31 @@ public class UserPrincipal implements OAuth2User, UserDetails {
   private String password;
   private Collection<? extends GrantedAuthority> authorities;
   private Map<String, Object> attributes;
+  private int tokenVersion;
+
+  public UserPrincipal(
+      Long id,
+      String email,
+      String password,
+      Collection<? extends GrantedAuthority> authorities,
+      Map<String, Object> attributes) {
+    this(id, email, password, authorities, attributes, 0);
+  }
 
   public static UserPrincipal create(User user) {
-    Collection<GrantedAuthority> authorities =
-        user.getRoles().stream()
-            .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-            .collect(Collectors.toList());
+    return new UserPrincipal(
+        user.getId(),
+        user.getEmail(),
+        user.getPassword(),
+        RoleRegistry.authorities(user.getRoles()),
+        null,
+        user.getTokenVersion());
+  }
 
-    return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), authorities, null);
+  /** Rebuilds a principal from the claims of a self-contained access token, without a lookup. */
+  public static UserPrincipal create(VerifiedToken token) {
+    return new UserPrincipal(
+        token.userId(), token.email(), null, token.authorities(), null, token.tokenVersion());
   }
 
   public static UserPrincipal create(User user, Map<String, Object> attributes) {
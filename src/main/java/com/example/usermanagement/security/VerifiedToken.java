@@ -0,0 +1,27 @@
+package com.example.usermanagement.security;
+
+import java.time.Instant;
+import java.util.Collection;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * The parts of a signature-checked access token that authentication needs. {@code email} and {@code
+ * authorities} are only present on tokens issued in self-contained principal mode; {@code
+ * tokenVersion} and {@code jti} are missing from tokens issued before they were added.
+ */
+public record VerifiedToken(
+    Long userId,
+    String email,
+    Collection<? extends GrantedAuthority> authorities,
+    Integer tokenVersion,
+    Instant expiresAt,
+    String jti) {
+
+  public VerifiedToken(Long userId, Instant expiresAt) {
+    this(userId, null, null, null, expiresAt, null);
+  }
+
+  public boolean hasPrincipalClaims() {
+    return email != null && authorities != null && tokenVersion != null;
+  }
+}
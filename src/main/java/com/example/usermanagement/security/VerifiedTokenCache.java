@@ -0,0 +1,114 @@
+package com.example.usermanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers access tokens that already passed signature verification, so a client resending the
+ * same token only costs a SHA-256 digest and a map lookup. Entries are keyed by the digest rather
+ * than the token itself and are evicted when the token expires.
+ */
+@Component
+public class VerifiedTokenCache {
+  private static final MessageDigest SHA_256 = newSha256();
+
+  private final JwtTokenProvider tokenProvider;
+  private final Cache<TokenKey, VerifiedToken> cache;
+
+  public VerifiedTokenCache(
+      JwtTokenProvider tokenProvider,
+      MeterRegistry meterRegistry,
+      @Value("${app.jwt.verified-token-cache.enabled:true}") boolean enabled,
+      @Value("${app.jwt.verified-token-cache.max-size:100000}") long maxSize) {
+    this.tokenProvider = tokenProvider;
+    this.cache =
+        enabled
+            ? Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build()
+            : null;
+    if (cache != null) {
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+  }
+
+  /** Same contract as {@link JwtTokenProvider#verifyToken}, served from the cache when possible. */
+  public Optional<VerifiedToken> verify(String token) {
+    if (cache == null) {
+      return tokenProvider.verifyToken(token);
+    }
+
+    TokenKey key = TokenKey.of(token);
+    VerifiedToken cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    Optional<VerifiedToken> verified = tokenProvider.verifyToken(token);
+    verified.ifPresent(v -> cache.put(key, v));
+    return verified;
+  }
+
+  public long hitCount() {
+    return cache == null ? 0 : cache.stats().hitCount();
+  }
+
+  public long missCount() {
+    return cache == null ? 0 : cache.stats().missCount();
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /** The full 256-bit digest, so a collision can never authenticate one user as another. */
+  private record TokenKey(long h0, long h1, long h2, long h3) {
+    static TokenKey of(String token) {
+      MessageDigest digest;
+      try {
+        digest = (MessageDigest) SHA_256.clone();
+      } catch (CloneNotSupportedException e) {
+        digest = newSha256();
+      }
+      ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+      return new TokenKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+  }
+
+  private static class UntilTokenExpiry implements Expiry<TokenKey, VerifiedToken> {
+    @Override
+    public long expireAfterCreate(TokenKey key, VerifiedToken value, long currentTime) {
+      return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        TokenKey key, VerifiedToken value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        TokenKey key, VerifiedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -4,14 +4,15 @@ import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.User;
 import com.example.usermanagement.entity.User.Provider;
 import com.example.usermanagement.exception.OAuth2AuthenticationProcessingException;
-import com.example.usermanagement.exception.ResourceNotFoundException;
-import com.example.usermanagement.repository.RoleRepository;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.UserChangedEvent;
 import com.example.usermanagement.security.UserPrincipal;
 import com.example.usermanagement.security.oauth2.userinfo.OAuth2UserInfo;
+import com.example.usermanagement.service.RoleRegistry;
 import java.util.HashSet;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
@@ -24,7 +25,8 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class OAuth2UserService extends DefaultOAuth2UserService {
   private final UserRepository userRepository;
-  private final RoleRepository roleRepository;
+  private final RoleRegistry roleRegistry;
+  private final ApplicationEventPublisher eventPublisher;
 
   @Override
   @Transactional
@@ -81,10 +83,7 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
 
   private User registerNewUser(OAuth2UserRequest oAuth2UserRequest, OAuth2UserInfo oAuth2UserInfo) {
     try {
-      Role userRole =
-          roleRepository
-              .findByName(Role.RoleName.ROLE_USER)
-              .orElseThrow(() -> new ResourceNotFoundException("Default user role not found"));
+      Role userRole = roleRegistry.reference(Role.RoleName.ROLE_USER);
 
       User user =
           User.builder()
@@ -110,7 +109,9 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
     if (oAuth2UserInfo.getImageUrl() != null) {
       existingUser.setProfilePictureUrl(oAuth2UserInfo.getImageUrl());
     }
-    return userRepository.save(existingUser);
+    User updatedUser = userRepository.save(existingUser);
+    eventPublisher.publishEvent(new UserChangedEvent(updatedUser.getId()));
+    return updatedUser;
   }
 
   private String generateUniqueUsername(String email) {
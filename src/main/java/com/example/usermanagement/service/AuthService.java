@@ -6,20 +6,29 @@ import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.User;
 import com.example.usermanagement.exception.*;
 import com.example.usermanagement.repository.RefreshTokenRepository;
-import com.example.usermanagement.repository.RoleRepository;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.AccessTokenRevocations;
+import com.example.usermanagement.security.CustomUserDetailsService;
 import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.RefreshTokenClaims;
+import com.example.usermanagement.security.RefreshTokenRevocations;
+import com.example.usermanagement.security.TokenDigest;
+import com.example.usermanagement.security.TokenVersionRegistry;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.VerifiedToken;
 import java.time.Instant;
-import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,44 +36,65 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 @RequiredArgsConstructor
 public class AuthService {
+  // Names Postgres gave the UNIQUE constraints declared in V1__init.sql
+  private static final String USERNAME_CONSTRAINT = "users_username_key";
+  private static final String EMAIL_CONSTRAINT = "users_email_key";
+
   private final AuthenticationManager authenticationManager;
   private final UserRepository userRepository;
-  private final RoleRepository roleRepository;
+  private final RoleRegistry roleRegistry;
   private final PasswordEncoder passwordEncoder;
   private final JwtTokenProvider tokenProvider;
   private final RefreshTokenRepository refreshTokenRepository;
-
-  @Transactional
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final PasswordRehashService passwordRehashService;
+  private final CustomUserDetailsService userDetailsService;
+  private final RefreshTokenRotator refreshTokenRotator;
+  private final RefreshTokenRevocations refreshTokenRevocations;
+  private final AccessTokenRevocations accessTokenRevocations;
+
+  @Value("${app.refresh-tokens.max-sessions-per-user:10}")
+  private int maxSessionsPerUser;
+
+  /**
+   * Registers a user with a single insert. There are no existence pre-checks: they cost extra round
+   * trips and still race with concurrent signups, so the {@code users} unique constraints decide.
+   * Not transactional, so no connection is held while the password is hashed.
+   */
   public SignupResponse signup(SignupRequest request) {
-    // Validate username and email
-    if (userRepository.existsByUsername(request.getUsername())) {
-      throw new UsernameAlreadyExistsException(request.getUsername());
-    }
-    if (userRepository.existsByEmail(request.getEmail())) {
-      throw new EmailAlreadyExistsException(request.getEmail());
-    }
-
-    // Get user role
-    Role userRole =
-        roleRepository
-            .findByName(Role.RoleName.ROLE_USER)
-            .orElseThrow(() -> new ResourceNotFoundException("Default user role not found"));
-
-    // Create new user
     User user =
         User.builder()
             .username(request.getUsername())
             .email(request.getEmail())
             .password(passwordEncoder.encode(request.getPassword()))
             .provider(User.Provider.LOCAL)
-            .roles(Set.of(userRole))
+            .roles(Set.of(roleRegistry.get(Role.RoleName.ROLE_USER)))
             .build();
 
-    userRepository.save(user);
+    try {
+      userRepository.saveAndFlush(user);
+    } catch (DataIntegrityViolationException e) {
+      throw translateUniqueViolation(e, request);
+    }
 
     return new SignupResponse(true, "User registered successfully");
   }
 
+  private RuntimeException translateUniqueViolation(
+      DataIntegrityViolationException e, SignupRequest request) {
+    String constraint =
+        e.getCause() instanceof ConstraintViolationException violation
+            ? violation.getConstraintName()
+            : null;
+    if (USERNAME_CONSTRAINT.equals(constraint)) {
+      return new UsernameAlreadyExistsException(request.getUsername());
+    }
+    if (EMAIL_CONSTRAINT.equals(constraint)) {
+      return new EmailAlreadyExistsException(request.getEmail());
+    }
+    return e;
+  }
+
   @Transactional
   public LoginResponse login(LoginRequest request) {
     Authentication authentication =
@@ -72,71 +102,100 @@ public class AuthService {
             new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
 
     UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+    if (passwordRehashService.needsRehash(userPrincipal.getPassword())) {
+      passwordRehashService.rehash(
+          userPrincipal.getId(), userPrincipal.getPassword(), request.getPassword());
+    }
     String accessToken = tokenProvider.generateAccessToken(authentication);
-    RefreshToken refreshToken = createRefreshToken(userPrincipal.getId());
+    String refreshToken = createRefreshToken(userPrincipal.getId(), request.getDeviceName());
 
-    return new LoginResponse(accessToken, refreshToken.getToken());
+    return new LoginResponse(accessToken, refreshToken);
   }
 
+  /**
+   * Starts a new session family for the device, without loading the user. Logins of one user
+   * serialize on the user row, so the cap on sessions per user holds exactly; the least recently
+   * used sessions beyond it are evicted. With stateless refresh tokens the family is still
+   * recorded, for listing and the cap, and evicted families are revoked.
+   */
   @Transactional
-  public RefreshToken createRefreshToken(Long userId) {
-    User user =
-        userRepository
-            .findById(userId)
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-    refreshTokenRepository.findByUser(user).ifPresent(refreshTokenRepository::delete);
-
-    RefreshToken refreshToken =
+  public String createRefreshToken(Long userId, String deviceName) {
+    userRepository
+        .lockById(userId)
+        .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+    UUID familyId = UUID.randomUUID();
+    Instant now = Instant.now();
+    Instant expiryDate = now.plusMillis(tokenProvider.getRefreshTokenExpiration());
+    boolean stateless = refreshTokenRevocations.isEnabled();
+    String token =
+        stateless
+            ? tokenProvider.generateRefreshToken(userId, familyId, expiryDate)
+            : UUID.randomUUID().toString();
+    refreshTokenRepository.saveAndFlush(
         RefreshToken.builder()
-            .user(user)
-            .token(UUID.randomUUID().toString())
-            .expiryDate(Instant.now().plusMillis(tokenProvider.getRefreshTokenExpiration()))
-            .build();
+            .user(userRepository.getReferenceById(userId))
+            .familyId(familyId)
+            .tokenHash(TokenDigest.sha256(token))
+            .deviceName(deviceName)
+            .expiryDate(expiryDate)
+            .lastUsedAt(now)
+            .build());
+    if (stateless) {
+      refreshTokenRevocations.revokeAll(
+          refreshTokenRepository.findLeastRecentlyUsedFamilyIds(userId, maxSessionsPerUser));
+    }
+    refreshTokenRepository.deleteLeastRecentlyUsed(userId, maxSessionsPerUser);
 
-    return refreshTokenRepository.save(refreshToken);
+    return token;
   }
 
-  @Transactional
+  /**
+   * Exchanges a refresh token for a new access token. A signed refresh token is checked against the
+   * in-memory revocations only and returned as is, so this path touches no database; it is neither
+   * rotated nor counted as use of its session. Opaque tokens, including those issued before
+   * stateless mode was switched on, are rotated in the database.
+   */
   public TokenRefreshResponse refreshToken(String refreshToken) {
-    return refreshTokenRepository
-        .findByToken(refreshToken)
-        .map(this::verifyRefreshToken)
-        .map(RefreshToken::getUser)
-        .map(
-            user -> {
-              // Create proper authorities from user roles
-              List<SimpleGrantedAuthority> authorities =
-                  user.getRoles().stream()
-                      .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                      .collect(Collectors.toList());
-
-              UserPrincipal userPrincipal = UserPrincipal.create(user);
-
-              // Create authentication with proper authorities
-              Authentication authentication =
-                  new UsernamePasswordAuthenticationToken(userPrincipal, null, authorities);
-
-              String accessToken = tokenProvider.generateAccessToken(authentication);
-              return new TokenRefreshResponse(accessToken, refreshToken);
-            })
-        .orElseThrow(() -> new TokenRefreshException("Invalid refresh token"));
+    if (refreshTokenRevocations.isEnabled()) {
+      Optional<RefreshTokenClaims> claims = tokenProvider.parseRefreshToken(refreshToken);
+      if (claims.isPresent()) {
+        if (refreshTokenRevocations.isRevoked(claims.get().familyId())) {
+          throw new TokenRefreshException("Invalid refresh token");
+        }
+        return new TokenRefreshResponse(accessToken(claims.get().userId()), refreshToken);
+      }
+    }
+    RefreshTokenRotator.Rotation rotation = refreshTokenRotator.rotate(refreshToken);
+    return new TokenRefreshResponse(accessToken(rotation.userId()), rotation.refreshToken());
   }
 
-  private RefreshToken verifyRefreshToken(RefreshToken token) {
-    if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-      refreshTokenRepository.delete(token);
-      throw new TokenRefreshException("Refresh token was expired");
+  private String accessToken(Long userId) {
+    UserDetails userDetails;
+    try {
+      userDetails = userDetailsService.loadUserById(userId);
+    } catch (UsernameNotFoundException e) {
+      throw new TokenRefreshException("Invalid refresh token");
     }
-    return token;
+    Authentication authentication =
+        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    return tokenProvider.generateAccessToken(authentication);
   }
 
+  /**
+   * Signs the user out everywhere: revokes every session and bumps the token version, which every
+   * node checks access tokens against. The access token used to log out, if any, is also denied by
+   * its {@code jti}.
+   */
   @Transactional
-  public void logout(String email) {
-    User user =
-        userRepository
-            .findByEmail(email)
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-    refreshTokenRepository.deleteByUser(user);
+  public void logout(Long userId, VerifiedToken accessToken) {
+    if (refreshTokenRevocations.isEnabled()) {
+      refreshTokenRevocations.revokeAll(refreshTokenRepository.findFamilyIdsByUserId(userId));
+    }
+    refreshTokenRepository.deleteAllByUserId(userId);
+    tokenVersionRegistry.revoke(userId);
+    if (accessToken != null) {
+      accessTokenRevocations.revoke(accessToken.jti(), accessToken.expiresAt());
+    }
   }
 }
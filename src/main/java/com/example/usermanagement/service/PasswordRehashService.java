@@ -0,0 +1,43 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.exception.ServiceBusyException;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.BcryptCostCalibrator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves stored password hashes to this node's BCrypt cost after a successful login, while the raw
+ * password is at hand. The work runs in the background so login latency is unaffected.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordRehashService {
+  private final UserRepository userRepository;
+  private final PasswordEncoder passwordEncoder;
+  private final BcryptCostCalibrator bcryptCostCalibrator;
+
+  public boolean needsRehash(String encodedPassword) {
+    return bcryptCostCalibrator.needsRehash(encodedPassword);
+  }
+
+  @Async
+  public void rehash(Long userId, String currentHash, String rawPassword) {
+    String newHash;
+    try {
+      newHash = passwordEncoder.encode(rawPassword);
+    } catch (ServiceBusyException e) {
+      // Logins come first; the next one will try again
+      log.debug("Skipping password rehash for user {}: hashing pool is busy", userId);
+      return;
+    }
+    // Only replace the hash we verified, so a concurrent password change is never overwritten
+    if (userRepository.updatePasswordIfUnchanged(userId, currentHash, newHash) == 0) {
+      log.debug("Password for user {} changed during rehash; leaving it as is", userId);
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.example.usermanagement.service;
+
+/**
+ * Published when a user's profile picture is set to the stored object {@code key}. Listeners run
+ * after the surrounding transaction commits.
+ */
+public record ProfilePictureChangedEvent(Long userId, String key) {}
@@ -0,0 +1,245 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+/**
+ * Generates smaller JPEG variants of each new profile picture, so clients showing an avatar need
+ * not download the original. Variants are stored under a {@code thumbnails/} directory beside the
+ * original, as {@code thumbnails/{name}_{size}.jpg}, fitting within {@code size} by {@code size}
+ * pixels, and the sizes made are recorded on the user once they are all stored. Keeping them out of
+ * the upload directory means a client cannot confirm a variant as its picture.
+ *
+ * <p>Work runs after the upload has committed, on a small dedicated pool, so uploads never wait for
+ * it. The queue is bounded. Once it is full, new pictures are skipped and counted as {@code
+ * profile_pictures.thumbnails.dropped}; clients fall back to the original for them. The original is
+ * decoded once, subsampled while decoding to about twice the largest size, and every variant is
+ * scaled down from the previous one.
+ */
+@Component
+@Slf4j
+public class ProfilePictureThumbnails implements DisposableBean {
+  private static final String CONTENT_TYPE = "image/jpeg";
+  private static final String DIRECTORY = "thumbnails/";
+
+  private final S3Service s3Service;
+  private final UserRepository userRepository;
+  private final List<Integer> sizes;
+  private final float quality;
+  private final long maxPixels;
+  private final ThreadPoolExecutor pool;
+  private final ExecutorService executor;
+  private final Counter dropped;
+
+  public ProfilePictureThumbnails(
+      S3Service s3Service,
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.profile-picture.thumbnails.sizes:64,256}") List<Integer> sizes,
+      @Value("${app.profile-picture.thumbnails.quality:0.8}") float quality,
+      @Value("${app.profile-picture.thumbnails.max-pixels:40000000}") long maxPixels,
+      @Value("${app.profile-picture.thumbnails.threads:1}") int threads,
+      @Value("${app.profile-picture.thumbnails.queue-capacity:100}") int queueCapacity) {
+    this.s3Service = s3Service;
+    this.userRepository = userRepository;
+    this.sizes = sizes.stream().distinct().sorted((a, b) -> b - a).toList();
+    this.quality = quality;
+    this.maxPixels = maxPixels;
+    this.pool =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("profile-picture-thumbnails-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "profilePictureThumbnails");
+    this.dropped =
+        Counter.builder("profile_pictures.thumbnails.dropped")
+            .description("Profile pictures left without thumbnails because the queue was full")
+            .register(meterRegistry);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onProfilePictureChanged(ProfilePictureChangedEvent event) {
+    if (sizes.isEmpty()) {
+      return;
+    }
+    try {
+      executor.execute(() -> generate(event.userId(), event.key()));
+    } catch (RejectedExecutionException e) {
+      dropped.increment();
+      log.warn("Thumbnail queue is full, skipping {}", event.key());
+    }
+  }
+
+  /** The key of the {@code size} variant of the picture stored under {@code key}. */
+  public static String variantKey(String key, int size) {
+    int directory = key.lastIndexOf('/') + 1;
+    int extension = key.lastIndexOf('.');
+    String name =
+        extension >= directory ? key.substring(directory, extension) : key.substring(directory);
+    return key.substring(0, directory) + DIRECTORY + name + "_" + size + ".jpg";
+  }
+
+  /**
+   * Keys of every variant the picture may have: the recorded sizes, and the configured ones in case
+   * they were still being stored.
+   */
+  public List<String> variantKeys(String key, Integer[] recordedSizes) {
+    Set<Integer> all = new LinkedHashSet<>(sizes);
+    if (recordedSizes != null) {
+      all.addAll(Arrays.asList(recordedSizes));
+    }
+    return all.stream().map(size -> variantKey(key, size)).toList();
+  }
+
+  void generate(Long userId, String key) {
+    List<String> stored = new ArrayList<>();
+    try {
+      BufferedImage image;
+      try (InputStream input = s3Service.openFile(key)) {
+        image = decode(input, sizes.get(0), maxPixels);
+      }
+      if (image == null) {
+        log.info("Not generating thumbnails of {}: unreadable or too large", key);
+        return;
+      }
+      for (int size : sizes) {
+        image = resize(image, size);
+        String variant = variantKey(key, size);
+        s3Service.putFile(variant, encode(image, quality), CONTENT_TYPE);
+        stored.add(variant);
+      }
+      if (userRepository.updateProfilePictureThumbnails(userId, key, sizes.toArray(Integer[]::new))
+          == 0) {
+        // Replaced or deleted while we worked; whoever did that may have missed these
+        stored.forEach(s3Service::deleteFile);
+      }
+    } catch (NoSuchKeyException e) {
+      log.debug("{} was deleted before its thumbnails were generated", key);
+      stored.forEach(s3Service::deleteFile);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to generate thumbnails of {}", key, e);
+      stored.forEach(s3Service::deleteFile);
+    }
+  }
+
+  /**
+   * Decodes the first image in {@code input}, subsampled to no less than twice {@code largestSize}
+   * on its longer side, so a large original is never held at full resolution. Returns {@code null}
+   * for formats ImageIO cannot read and for images of more than {@code maxPixels}.
+   */
+  static BufferedImage decode(InputStream input, int largestSize, long maxPixels)
+      throws IOException {
+    try (ImageInputStream stream = new MemoryCacheImageInputStream(input)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+      if (!readers.hasNext()) {
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(stream, true, true);
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        if ((long) width * height > maxPixels) {
+          return null;
+        }
+        ImageReadParam param = reader.getDefaultReadParam();
+        int subsampling = Math.max(1, Math.max(width, height) / (2 * largestSize));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Scales {@code image} to fit within {@code size} by {@code size}, never up, flattening any
+   * transparency onto white. Halves the image in steps first, as a single bilinear step of more
+   * than 2x skips pixels.
+   */
+  static BufferedImage resize(BufferedImage image, int size) {
+    double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+    int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+    int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+    BufferedImage current = image;
+    while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+      current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+    }
+    return draw(current, width, height);
+  }
+
+  private static BufferedImage draw(BufferedImage source, int width, int height) {
+    BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = target.createGraphics();
+    try {
+      graphics.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+    } finally {
+      graphics.dispose();
+    }
+    return target;
+  }
+
+  static byte[] encode(BufferedImage image, float quality) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+      writer.setOutput(output);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(quality);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.exception.UnsupportedMediaTypeException;
+import java.util.Arrays;
+import java.util.Locale;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** The image formats accepted as profile pictures, recognized by their leading bytes. */
+@Getter
+@RequiredArgsConstructor
+public enum ProfilePictureType {
+  JPEG("image/jpeg", ".jpg", new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+  PNG("image/png", ".png", new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}),
+  GIF("image/gif", ".gif", new byte[] {'G', 'I', 'F', '8'}),
+  WEBP("image/webp", ".webp", new byte[] {'R', 'I', 'F', 'F'});
+
+  /** Bytes needed to recognize any of the types. */
+  public static final int HEADER_LENGTH = 12;
+
+  private final String contentType;
+  private final String extension;
+  private final byte[] signature;
+
+  /** The type declared by a {@code Content-Type} header, parameters ignored. */
+  public static ProfilePictureType fromContentType(String contentType) {
+    if (contentType != null) {
+      String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+      for (ProfilePictureType type : values()) {
+        if (type.contentType.equals(mediaType)) {
+          return type;
+        }
+      }
+    }
+    throw new UnsupportedMediaTypeException(
+        "Profile pictures must be JPEG, PNG, GIF or WebP images");
+  }
+
+  /** Whether the first bytes of a file are those of this type. */
+  public boolean matches(byte[] header) {
+    if (header.length < signature.length
+        || !Arrays.equals(header, 0, signature.length, signature, 0, signature.length)) {
+      return false;
+    }
+    // RIFF is a container; WebP names itself at offset 8
+    return this != WEBP
+        || (header.length >= HEADER_LENGTH
+            && header[8] == 'W'
+            && header[9] == 'E'
+            && header[10] == 'B'
+            && header[11] == 'P');
+  }
+}
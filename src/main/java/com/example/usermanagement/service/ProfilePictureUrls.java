@@ -0,0 +1,90 @@
+package com.example.usermanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+/**
+ * Turns stored profile-picture keys into URLs clients can fetch from S3 directly. Signing costs CPU
+ * on every call, so each key's presigned GET is cached and reused until {@code refresh-before}
+ * ahead of its expiry. A URL handed out is therefore always valid for at least that long. Pictures
+ * that are already URLs, e.g. OAuth2 provider avatars, are returned as they are.
+ */
+@Component
+public class ProfilePictureUrls {
+  private final S3Service s3Service;
+  private final Duration ttl;
+  private final Duration refreshBefore;
+  private final Cache<String, PresignedUrl> urls;
+
+  public ProfilePictureUrls(
+      S3Service s3Service,
+      MeterRegistry meterRegistry,
+      @Value("${app.profile-picture.download-url.ttl:1h}") Duration ttl,
+      @Value("${app.profile-picture.download-url.refresh-before:5m}") Duration refreshBefore,
+      @Value("${app.profile-picture.download-url.cache-size:100000}") long maxSize) {
+    this.s3Service = s3Service;
+    this.ttl = ttl;
+    this.refreshBefore = refreshBefore;
+    this.urls =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new UntilRefresh())
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, urls, "profilePictureUrls");
+  }
+
+  /** A URL for the stored picture, or {@code null} if there is none. */
+  public String resolve(String pictureUrl) {
+    if (!StringUtils.hasText(pictureUrl)
+        || pictureUrl.startsWith("https://")
+        || pictureUrl.startsWith("http://")) {
+      return pictureUrl;
+    }
+    return urls.get(pictureUrl, this::presign).url();
+  }
+
+  /** Forgets the URL of a key that is no longer the picture, e.g. once it was replaced. */
+  public void evict(String pictureUrl) {
+    if (StringUtils.hasText(pictureUrl)) {
+      urls.invalidate(pictureUrl);
+    }
+  }
+
+  private PresignedUrl presign(String key) {
+    // Signing is CPU only, so it may run under the cache's lock
+    PresignedGetObjectRequest presigned = s3Service.presignDownload(key, ttl);
+    return new PresignedUrl(presigned.url().toString(), presigned.expiration());
+  }
+
+  private record PresignedUrl(String url, Instant expiresAt) {}
+
+  private class UntilRefresh implements Expiry<String, PresignedUrl> {
+    @Override
+    public long expireAfterCreate(String key, PresignedUrl value, long currentTime) {
+      return Math.max(
+          0, Duration.between(Instant.now(), value.expiresAt()).minus(refreshBefore).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, PresignedUrl value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, PresignedUrl value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
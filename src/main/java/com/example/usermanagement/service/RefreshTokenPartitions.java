@@ -0,0 +1,120 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains {@code refresh_tokens} when it is range-partitioned by expiry month (the optional
+ * {@code db/partitioned} migration). Partitions are created {@code months-ahead} in advance, and a
+ * month's partition is dropped once the month is over, as every token in it has then expired.
+ *
+ * <p>{@code expiry_date} is a {@code TIMESTAMP} without time zone holding the JVM's local time:
+ * Hibernate, JDBC timestamps and the session time zone pgjdbc sets all use the default zone. Months
+ * are therefore taken in that zone too, or a node west of UTC would drop a month's partition while
+ * its last tokens were still valid. All nodes must run in the same zone.
+ *
+ * <p>Whether the table is partitioned is read from the catalog at startup; on a plain table this
+ * does nothing. Nodes coordinate through an advisory lock, so only one maintains at a time.
+ */
+@Component
+@Slf4j
+public class RefreshTokenPartitions {
+  private static final long MAINTENANCE_LOCK_ID = 0x72747074L;
+  private static final String PARTITION_PREFIX = "refresh_tokens_p";
+  private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int monthsAhead;
+
+  @Getter private boolean partitioned;
+
+  public RefreshTokenPartitions(
+      RefreshTokenRepository refreshTokenRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.refresh-tokens.partition-maintenance.months-ahead:3}") int monthsAhead) {
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.monthsAhead = monthsAhead;
+  }
+
+  @PostConstruct
+  public void initialize() {
+    partitioned = refreshTokenRepository.isPartitioned();
+    if (partitioned) {
+      log.info("refresh_tokens is partitioned by expiry month");
+      maintain();
+    }
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.refresh-tokens.partition-maintenance.interval:3600000}",
+      initialDelayString = "${app.refresh-tokens.partition-maintenance.interval:3600000}")
+  public void maintain() {
+    if (partitioned) {
+      maintain(YearMonth.now(ZoneId.systemDefault()));
+    }
+  }
+
+  void maintain(YearMonth current) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          if (!refreshTokenRepository.tryAdvisoryXactLock(MAINTENANCE_LOCK_ID)) {
+            return;
+          }
+          // Attaching and dropping partitions locks the parent; give up rather than queue logins
+          jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+          for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+          }
+          for (String partition :
+              jdbcTemplate.queryForList(
+                  "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                      + " WHERE i.inhparent = 'refresh_tokens'::regclass",
+                  String.class)) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(current)) {
+              jdbcTemplate.execute("DROP TABLE " + partition);
+              log.info("Dropped expired refresh token partition {}", partition);
+            }
+          }
+        });
+  }
+
+  private void createPartition(YearMonth month) {
+    jdbcTemplate.execute(
+        String.format(
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF refresh_tokens FOR VALUES FROM ('%s') TO"
+                + " ('%s')",
+            PARTITION_PREFIX + month.format(PARTITION_MONTH),
+            month.atDay(1),
+            month.plusMonths(1).atDay(1)));
+  }
+
+  /** The month a partition created by this class or the migration holds, else {@code null}. */
+  static YearMonth monthOf(String partition) {
+    if (!partition.startsWith(PARTITION_PREFIX)) {
+      return null;
+    }
+    try {
+      return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes expired refresh tokens in the background. Tokens are otherwise only removed when someone
+ * presents them, so abandoned ones would stay forever.
+ *
+ * <p>Each run deletes in chunks of {@code chunk-size} rows, one short transaction per chunk, and
+ * pauses {@code chunk-pause} between chunks so it never holds many locks or saturates the WAL. A
+ * run stops after {@code max-chunks}; whatever is left waits for the next run. Several nodes may
+ * reap at once, since chunks skip rows another transaction has locked.
+ */
+@Component
+@ConditionalOnProperty(
+    name = "app.refresh-token-reaper.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+@Slf4j
+public class RefreshTokenReaper {
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final int chunkSize;
+  private final long chunkPauseMillis;
+  private final int maxChunks;
+  private final Counter reaped;
+  private final Timer chunkTimer;
+
+  public RefreshTokenReaper(
+      RefreshTokenRepository refreshTokenRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.refresh-token-reaper.chunk-size:1000}") int chunkSize,
+      @Value("${app.refresh-token-reaper.chunk-pause:100}") long chunkPauseMillis,
+      @Value("${app.refresh-token-reaper.max-chunks:1000}") int maxChunks) {
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.chunkSize = chunkSize;
+    this.chunkPauseMillis = chunkPauseMillis;
+    this.maxChunks = maxChunks;
+    this.reaped =
+        Counter.builder("refresh_tokens.reaped")
+            .description("Expired refresh tokens deleted by the reaper")
+            .register(meterRegistry);
+    this.chunkTimer =
+        Timer.builder("refresh_tokens.reap.chunk")
+            .description("Time to delete one chunk of expired refresh tokens")
+            .register(meterRegistry);
+  }
+
+  /** Reaps tokens that had expired when the run started, returning how many were deleted. */
+  @Scheduled(
+      fixedDelayString = "${app.refresh-token-reaper.interval:300000}",
+      initialDelayString = "${app.refresh-token-reaper.interval:300000}")
+  public long reap() {
+    Instant cutoff = Instant.now();
+    long total = 0;
+    for (int chunk = 0; chunk < maxChunks; chunk++) {
+      int deleted =
+          chunkTimer.record(() -> refreshTokenRepository.deleteExpiredChunk(cutoff, chunkSize));
+      reaped.increment(deleted);
+      total += deleted;
+      if (deleted < chunkSize || !pause()) {
+        break;
+      }
+    }
+    if (total > 0) {
+      log.info("Reaped {} expired refresh tokens", total);
+    }
+    return total;
+  }
+
+  private boolean pause() {
+    if (chunkPauseMillis <= 0) {
+      return true;
+    }
+    try {
+      Thread.sleep(chunkPauseMillis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.RefreshToken;
+import com.example.usermanagement.exception.TokenRefreshException;
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.TokenDigest;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Refreshes opaque refresh tokens, which are looked up and rotated in {@code refresh_tokens}. */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenRotator {
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final JwtTokenProvider tokenProvider;
+
+  /** The user a refresh token belongs to, and the token that replaces it. */
+  public record Rotation(Long userId, String refreshToken) {}
+
+  /**
+   * Swaps a refresh token for the family's next one. A token that was already rotated out means it
+   * leaked or was replayed, so the whole family is revoked.
+   */
+  @Transactional(noRollbackFor = TokenRefreshException.class)
+  public Rotation rotate(String refreshToken) {
+    byte[] tokenHash = TokenDigest.sha256(refreshToken);
+    RefreshToken session =
+        refreshTokenRepository
+            .findByTokenHash(tokenHash)
+            .orElseThrow(
+                () -> {
+                  refreshTokenRepository
+                      .findByPreviousTokenHash(tokenHash)
+                      .ifPresent(this::revokeReusedFamily);
+                  return new TokenRefreshException("Invalid refresh token");
+                });
+    verifyRefreshToken(session);
+
+    String nextToken = UUID.randomUUID().toString();
+    Instant now = Instant.now();
+    int rotated =
+        refreshTokenRepository.rotate(
+            session.getId(),
+            tokenHash,
+            TokenDigest.sha256(nextToken),
+            now.plusMillis(tokenProvider.getRefreshTokenExpiration()),
+            now);
+    if (rotated == 0) {
+      // Another request presented the same token first
+      revokeReusedFamily(session);
+      throw new TokenRefreshException("Invalid refresh token");
+    }
+    return new Rotation(session.getUser().getId(), nextToken);
+  }
+
+  private void revokeReusedFamily(RefreshToken session) {
+    log.warn(
+        "Refresh token reuse detected, revoking session family {} of user {}",
+        session.getFamilyId(),
+        session.getUser().getId());
+    refreshTokenRepository.deleteByFamilyId(session.getFamilyId());
+  }
+
+  private void verifyRefreshToken(RefreshToken token) {
+    if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
+      refreshTokenRepository.delete(token);
+      throw new TokenRefreshException("Refresh token was expired");
+    }
+  }
+}
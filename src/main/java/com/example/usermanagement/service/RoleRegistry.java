@@ -0,0 +1,126 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.exception.ResourceNotFoundException;
+import com.example.usermanagement.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory view of the {@code roles} table. Roles practically never change, so they are loaded
+ * once at startup (seeding any {@link Role.RoleName} that is missing) and re-read every {@code
+ * app.roles.refresh-interval}, or on {@link #refresh()}, instead of being queried per signup.
+ *
+ * <p>Also hands out one shared {@link GrantedAuthority} per role, and one immutable authority list
+ * per combination of roles, so building a principal allocates neither.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoleRegistry {
+  private static final Role.RoleName[] ROLE_NAMES = Role.RoleName.values();
+  private static final Map<String, GrantedAuthority> AUTHORITIES = new HashMap<>();
+  private static final List<List<GrantedAuthority>> AUTHORITY_LISTS = new ArrayList<>();
+
+  static {
+    for (Role.RoleName name : ROLE_NAMES) {
+      AUTHORITIES.put(name.name(), new SimpleGrantedAuthority(name.name()));
+    }
+    // Indexed by a bit mask of role ordinals
+    for (int mask = 0; mask < 1 << ROLE_NAMES.length; mask++) {
+      List<GrantedAuthority> authorities = new ArrayList<>();
+      for (Role.RoleName name : ROLE_NAMES) {
+        if ((mask & 1 << name.ordinal()) != 0) {
+          authorities.add(AUTHORITIES.get(name.name()));
+        }
+      }
+      AUTHORITY_LISTS.add(List.copyOf(authorities));
+    }
+  }
+
+  private final RoleRepository roleRepository;
+
+  @PersistenceContext private EntityManager entityManager;
+
+  private volatile Map<Role.RoleName, Role> roles = new EnumMap<>(Role.RoleName.class);
+
+  @PostConstruct
+  public void initialize() {
+    Map<Role.RoleName, Role> existing = load();
+    for (Role.RoleName name : ROLE_NAMES) {
+      if (!existing.containsKey(name)) {
+        log.info("Creating missing role {}", name);
+        Role role = new Role();
+        role.setName(name);
+        try {
+          roleRepository.save(role);
+        } catch (DataIntegrityViolationException e) {
+          log.info("Role {} was created concurrently", name);
+        }
+      }
+    }
+    refresh();
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.roles.refresh-interval:300000}",
+      initialDelayString = "${app.roles.refresh-interval:300000}")
+  public void refresh() {
+    roles = load();
+  }
+
+  /** A detached copy of the role, safe to use outside a transaction. */
+  public Role get(Role.RoleName name) {
+    Role role = roles.get(name);
+    if (role == null) {
+      // Created since the last refresh, e.g. by another node
+      refresh();
+      role = roles.get(name);
+    }
+    if (role == null) {
+      throw new ResourceNotFoundException("Role not found: " + name);
+    }
+    return role;
+  }
+
+  /** A reference managed by the current persistence context, obtained without a query. */
+  public Role reference(Role.RoleName name) {
+    return entityManager.getReference(Role.class, get(name).getId());
+  }
+
+  public static GrantedAuthority authority(String roleName) {
+    GrantedAuthority authority = AUTHORITIES.get(roleName);
+    return authority != null ? authority : new SimpleGrantedAuthority(roleName);
+  }
+
+  /** The shared, immutable authority list for a set of roles. */
+  public static List<GrantedAuthority> authorities(Collection<Role> roles) {
+    int mask = 0;
+    for (Role role : roles) {
+      mask |= 1 << role.getName().ordinal();
+    }
+    return AUTHORITY_LISTS.get(mask);
+  }
+
+  private Map<Role.RoleName, Role> load() {
+    Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+    for (Role role : roleRepository.findAll()) {
+      loaded.put(role.getName(), role);
+    }
+    return loaded;
+  }
+}
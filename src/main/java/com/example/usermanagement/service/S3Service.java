@@ -1,25 +1,55 @@
 package com.example.usermanagement.service;
 
+import com.example.usermanagement.exception.PayloadTooLargeException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class S3Service {
+  // S3 rejects smaller parts, except the last one
+  private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+
   private final S3Client s3Client;
+  private final S3AsyncClient s3AsyncClient;
+  private final S3Presigner s3Presigner;
 
   @Value("${app.aws.s3.bucket-name}")
   private String bucketName;
 
+  @Value("${app.aws.s3.upload.part-size:5MB}")
+  private DataSize partSize;
+
+  @Value("${app.aws.s3.upload.max-in-flight-parts:2}")
+  private int maxInFlightParts;
+
   public String uploadFile(MultipartFile file, String directory) {
     try {
       String fileExtension = getFileExtension(Objects.requireNonNull(file.getOriginalFilename()));
@@ -41,6 +71,198 @@ public class S3Service {
     }
   }
 
+  /**
+   * Streams {@code input} to a new object without holding the whole file. Input that fits in one
+   * part is sent with a single PUT. Larger input goes up as a multipart upload, with each part sent
+   * as soon as it fills and at most {@code max-in-flight-parts} uploading at once. Memory per
+   * upload is therefore bounded by a few parts, whatever the file size.
+   *
+   * <p>Fails with {@link PayloadTooLargeException} as soon as more than {@code maxSize} bytes
+   * arrive, without reading the rest. A failed upload leaves neither an object nor a pending
+   * multipart upload behind.
+   */
+  public String uploadStream(
+      InputStream input, String directory, String contentType, String extension, long maxSize) {
+    String key = directory + "/" + UUID.randomUUID() + extension;
+    int size = (int) Math.max(partSize.toBytes(), MIN_PART_SIZE);
+    try {
+      // One byte past the limit is enough to reject the upload
+      int wanted = (int) Math.min(size, maxSize + 1);
+      byte[] part = readPart(input, wanted, 0, maxSize);
+      if (part.length < wanted) {
+        join(
+            s3AsyncClient.putObject(
+                PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build(),
+                AsyncRequestBody.fromBytes(part)));
+        return key;
+      }
+      uploadParts(input, key, contentType, part, size, maxSize);
+      return key;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to upload file", e);
+    }
+  }
+
+  private void uploadParts(
+      InputStream input, String key, String contentType, byte[] firstPart, int size, long maxSize)
+      throws IOException {
+    String uploadId =
+        join(s3AsyncClient.createMultipartUpload(
+                CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build()))
+            .uploadId();
+    Semaphore inFlight = new Semaphore(maxInFlightParts);
+    List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    try {
+      long read = firstPart.length;
+      byte[] part = firstPart;
+      while (part.length > 0) {
+        inFlight.acquire();
+        parts.add(uploadPart(key, uploadId, parts.size() + 1, part, inFlight));
+        // Stop reading once a part has failed; the join below reports why
+        if (parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+          break;
+        }
+        part = readPart(input, (int) Math.min(size, maxSize + 1 - read), read, maxSize);
+        read += part.length;
+      }
+      List<CompletedPart> completed = parts.stream().map(S3Service::join).toList();
+      join(
+          s3AsyncClient.completeMultipartUpload(
+              CompleteMultipartUploadRequest.builder()
+                  .bucket(bucketName)
+                  .key(key)
+                  .uploadId(uploadId)
+                  .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                  .build()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      abort(key, uploadId, parts);
+      throw new RuntimeException("Interrupted while uploading file", e);
+    } catch (IOException | RuntimeException e) {
+      abort(key, uploadId, parts);
+      throw e;
+    }
+  }
+
+  private CompletableFuture<CompletedPart> uploadPart(
+      String key, String uploadId, int partNumber, byte[] part, Semaphore inFlight) {
+    return s3AsyncClient
+        .uploadPart(
+            UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) part.length)
+                .build(),
+            AsyncRequestBody.fromBytes(part))
+        .thenApply(
+            response ->
+                CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build())
+        .whenComplete((completedPart, error) -> inFlight.release());
+  }
+
+  private void abort(String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+    parts.forEach(part -> part.cancel(true));
+    s3AsyncClient
+        .abortMultipartUpload(
+            AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .build())
+        .whenComplete(
+            (response, error) -> {
+              if (error != null) {
+                log.warn("Failed to abort multipart upload {} of {}", uploadId, key, error);
+              }
+            });
+  }
+
+  /** Reads up to {@code wanted} bytes, failing if that takes the total past {@code maxSize}. */
+  private static byte[] readPart(InputStream input, int wanted, long readSoFar, long maxSize)
+      throws IOException {
+    byte[] part = input.readNBytes(wanted);
+    if (readSoFar + part.length > maxSize) {
+      throw new PayloadTooLargeException("File is larger than " + maxSize + " bytes");
+    }
+    return part;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Signs a PUT of exactly {@code contentLength} bytes of {@code contentType} to {@code key}. Both
+   * are signed headers, so S3 rejects an upload of any other size or type.
+   */
+  public PresignedPutObjectRequest presignUpload(
+      String key, String contentType, long contentLength, Duration ttl) {
+    return s3Presigner.presignPutObject(
+        PutObjectPresignRequest.builder()
+            .signatureDuration(ttl)
+            .putObjectRequest(
+                PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength(contentLength)
+                    .build())
+            .build());
+  }
+
+  /** Signs a GET of {@code key}, valid for {@code ttl}. */
+  public PresignedGetObjectRequest presignDownload(String key, Duration ttl) {
+    return s3Presigner.presignGetObject(
+        GetObjectPresignRequest.builder()
+            .signatureDuration(ttl)
+            .getObjectRequest(GetObjectRequest.builder().bucket(bucketName).key(key).build())
+            .build());
+  }
+
+  /** Opens the object for reading; the caller must close the stream. */
+  public InputStream openFile(String key) {
+    return s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+  }
+
+  /** Stores a small, fully buffered object under {@code key}. */
+  public void putFile(String key, byte[] content, String contentType) {
+    s3Client.putObject(
+        PutObjectRequest.builder().bucket(bucketName).key(key).contentType(contentType).build(),
+        RequestBody.fromBytes(content));
+  }
+
+  /** The object's metadata, or empty if there is no such object. */
+  public Optional<HeadObjectResponse> headFile(String key) {
+    try {
+      return Optional.of(
+          s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build()));
+    } catch (NoSuchKeyException e) {
+      return Optional.empty();
+    } catch (S3Exception e) {
+      if (e.statusCode() == 404) {
+        return Optional.empty();
+      }
+      throw e;
+    }
+  }
+
   public void deleteFile(String fileUrl) {
     if (!StringUtils.hasText(fileUrl)) {
       return;
@@ -0,0 +1,189 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.SessionRevocationRequest;
+import com.example.usermanagement.exception.BadRequestException;
+import com.example.usermanagement.security.RefreshTokenRevocations;
+import com.example.usermanagement.security.UserChangedEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Revokes the sessions of many users at once, e.g. when a tenant is disabled or during an incident.
+ *
+ * <p>Users are selected in pages of {@code batch-size} ordered by id. Each page is handled in one
+ * transaction with a few set-based statements, whatever the number of sessions. The statements bump
+ * the users' token versions, which invalidates their access tokens, and delete their refresh tokens
+ * (only those created in the window, when selecting by time). With stateless refresh tokens the
+ * deleted families are revoked too. Cached principals and token versions are evicted on every node
+ * once a page commits. A progress line is written per page, then a summary line.
+ */
+@Service
+@Slf4j
+public class SessionRevocationService {
+  private static final String USERS_WITH_ROLE =
+      "SELECT user_id FROM user_roles WHERE role_id = ? AND user_id > ? ORDER BY user_id LIMIT ?";
+  // Served by refresh_tokens_created_at_user_id_idx, so a page only reads the window's sessions
+  private static final String USERS_WITH_SESSIONS_CREATED =
+      "SELECT DISTINCT user_id FROM refresh_tokens WHERE created_at >= ? AND created_at < ?"
+          + " AND user_id > ? ORDER BY user_id LIMIT ?";
+  // Locks the users in id order before touching their sessions, the same order a login takes
+  // them in (see AuthService.createRefreshToken), so the two cannot deadlock
+  private static final String BUMP_TOKEN_VERSIONS =
+      "UPDATE users SET token_version = token_version + 1 WHERE id IN"
+          + " (SELECT id FROM users WHERE id = ANY(?) ORDER BY id FOR NO KEY UPDATE)";
+  private static final String DELETE_SESSIONS =
+      "DELETE FROM refresh_tokens WHERE user_id = ANY(?) RETURNING family_id";
+  private static final String DELETE_SESSIONS_CREATED =
+      "DELETE FROM refresh_tokens WHERE user_id = ANY(?) AND created_at >= ? AND created_at < ?"
+          + " RETURNING family_id";
+
+  public record RevocationResult(long users, long sessions) {}
+
+  private record BatchResult(int users, int sessions) {}
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final RoleRegistry roleRegistry;
+  private final RefreshTokenRevocations refreshTokenRevocations;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+
+  public SessionRevocationService(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      RoleRegistry roleRegistry,
+      RefreshTokenRevocations refreshTokenRevocations,
+      ApplicationEventPublisher eventPublisher,
+      ObjectMapper objectMapper,
+      @Value("${app.session-revocation.batch-size:500}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.roleRegistry = roleRegistry;
+    this.refreshTokenRevocations = refreshTokenRevocations;
+    this.eventPublisher = eventPublisher;
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+  }
+
+  /** Checks the request before anything is written, so a bad one can still be answered with 400. */
+  public void validate(SessionRevocationRequest request) {
+    boolean byUsers = request.getUserIds() != null;
+    boolean byRole = request.getRole() != null;
+    boolean byWindow = request.getCreatedFrom() != null || request.getCreatedTo() != null;
+    if ((byUsers ? 1 : 0) + (byRole ? 1 : 0) + (byWindow ? 1 : 0) != 1) {
+      throw new BadRequestException("Select sessions by exactly one of userIds, role or window");
+    }
+    if (byWindow
+        && (request.getCreatedFrom() == null
+            || request.getCreatedTo() == null
+            || !request.getCreatedFrom().isBefore(request.getCreatedTo()))) {
+      throw new BadRequestException("createdFrom must be before createdTo");
+    }
+  }
+
+  public RevocationResult revoke(SessionRevocationRequest request, OutputStream reportOutput)
+      throws IOException {
+    validate(request);
+    List<Long> userIds =
+        request.getUserIds() != null
+            ? request.getUserIds().stream().distinct().sorted().toList()
+            : null;
+    long roleId = request.getRole() != null ? roleRegistry.get(request.getRole()).getId() : 0;
+    long users = 0;
+    long sessions = 0;
+
+    try (JsonGenerator report = objectMapper.getFactory().createGenerator(reportOutput)) {
+      report.setRootValueSeparator(null);
+      long afterUserId = 0;
+      int offset = 0;
+      for (int batch = 1; ; batch++) {
+        List<Long> page;
+        if (userIds != null) {
+          page = userIds.subList(offset, Math.min(offset + batchSize, userIds.size()));
+          offset += page.size();
+        } else if (request.getRole() != null) {
+          page =
+              jdbcTemplate.queryForList(
+                  USERS_WITH_ROLE, Long.class, roleId, afterUserId, batchSize);
+        } else {
+          page =
+              jdbcTemplate.queryForList(
+                  USERS_WITH_SESSIONS_CREATED,
+                  Long.class,
+                  Timestamp.from(request.getCreatedFrom()),
+                  Timestamp.from(request.getCreatedTo()),
+                  afterUserId,
+                  batchSize);
+        }
+        if (page.isEmpty()) {
+          break;
+        }
+        afterUserId = page.get(page.size() - 1);
+
+        BatchResult result = revokeBatch(page, request);
+        users += result.users();
+        sessions += result.sessions();
+        report.writeStartObject();
+        report.writeNumberField("batch", batch);
+        report.writeNumberField("users", result.users());
+        report.writeNumberField("sessions", result.sessions());
+        writeLine(report);
+        report.flush();
+      }
+
+      report.writeStartObject();
+      report.writeNumberField("users", users);
+      report.writeNumberField("sessions", sessions);
+      writeLine(report);
+    }
+    log.info("Revoked {} sessions of {} users", sessions, users);
+    return new RevocationResult(users, sessions);
+  }
+
+  private BatchResult revokeBatch(List<Long> userIds, SessionRevocationRequest request) {
+    boolean byWindow = request.getCreatedFrom() != null;
+    return transactionTemplate.execute(
+        status -> {
+          int users = jdbcTemplate.update(BUMP_TOKEN_VERSIONS, ps -> setUserIds(ps, userIds));
+          List<UUID> familyIds =
+              jdbcTemplate.query(
+                  byWindow ? DELETE_SESSIONS_CREATED : DELETE_SESSIONS,
+                  ps -> {
+                    setUserIds(ps, userIds);
+                    if (byWindow) {
+                      ps.setTimestamp(2, Timestamp.from(request.getCreatedFrom()));
+                      ps.setTimestamp(3, Timestamp.from(request.getCreatedTo()));
+                    }
+                  },
+                  (rs, rowNum) -> rs.getObject(1, UUID.class));
+          refreshTokenRevocations.revokeAll(familyIds);
+          // Evicted after commit; relayed to the other nodes in a few notifications
+          userIds.forEach(userId -> eventPublisher.publishEvent(new UserChangedEvent(userId)));
+          return new BatchResult(users, familyIds.size());
+        });
+  }
+
+  private static void setUserIds(PreparedStatement ps, List<Long> userIds) throws SQLException {
+    ps.setArray(1, ps.getConnection().createArrayOf("bigint", userIds.toArray()));
+  }
+
+  private static void writeLine(JsonGenerator report) throws IOException {
+    report.writeEndObject();
+    report.writeRaw('\n');
+  }
+}
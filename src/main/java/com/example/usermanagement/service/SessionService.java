@@ -0,0 +1,40 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.SessionResponse;
+import com.example.usermanagement.exception.ResourceNotFoundException;
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import com.example.usermanagement.security.RefreshTokenRevocations;
+import com.example.usermanagement.security.UserPrincipal;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The current user's sessions, one per device family of refresh tokens. */
+@Service
+@RequiredArgsConstructor
+public class SessionService {
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final RefreshTokenRevocations refreshTokenRevocations;
+
+  @Transactional(readOnly = true)
+  public Page<SessionResponse> getSessions(UserPrincipal currentUser, Pageable pageable) {
+    return refreshTokenRepository
+        .findByUserIdOrderByLastUsedAtDesc(currentUser.getId(), pageable)
+        .map(SessionResponse::fromRefreshToken);
+  }
+
+  /**
+   * Signs a device out by deleting (and, with stateless refresh tokens, revoking) its family; its
+   * access tokens stay valid until they expire.
+   */
+  @Transactional
+  public void revokeSession(UserPrincipal currentUser, UUID sessionId) {
+    if (refreshTokenRepository.deleteByFamilyIdAndUserId(sessionId, currentUser.getId()) == 0) {
+      throw new ResourceNotFoundException("Session not found");
+    }
+    refreshTokenRevocations.revoke(sessionId);
+  }
+}
@@ -0,0 +1,134 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.SignupRequest;
+import com.example.usermanagement.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads users to import one line at a time, so memory use does not depend on the input size.
+ *
+ * <p>CSV input needs a header naming the {@code username}, {@code email} and {@code password}
+ * columns, in any order. Fields may be double-quoted, but may not span lines. JSON Lines input has
+ * one {@link SignupRequest} object per line. Lines that cannot be parsed are returned as rows with
+ * an error rather than aborting the import.
+ */
+class UserImportReader {
+  record Row(long line, SignupRequest request, String error) {}
+
+  private final BufferedReader reader;
+  private final UserImportService.Format format;
+  private final ObjectMapper objectMapper;
+  private long line;
+  private int usernameColumn = -1;
+  private int emailColumn = -1;
+  private int passwordColumn = -1;
+
+  UserImportReader(InputStream input, UserImportService.Format format, ObjectMapper objectMapper) {
+    this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    this.format = format;
+    this.objectMapper = objectMapper;
+  }
+
+  /** The next non-blank row, or null at the end of the input. */
+  Row next() throws IOException {
+    String text;
+    do {
+      text = reader.readLine();
+      line++;
+      if (text == null) {
+        return null;
+      }
+    } while (text.isBlank());
+
+    if (format == UserImportService.Format.JSON_LINES) {
+      // Jackson maps a literal null to a null request rather than failing
+      try (JsonParser parser = objectMapper.createParser(text)) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          return new Row(line, null, "Malformed JSON: expected an object");
+        }
+        return new Row(line, objectMapper.readValue(parser, SignupRequest.class), null);
+      } catch (JsonProcessingException e) {
+        return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+      }
+    }
+
+    if (usernameColumn < 0) {
+      readHeader(text);
+      return next();
+    }
+    List<String> fields = splitCsv(text);
+    if (fields == null) {
+      return new Row(line, null, "Malformed CSV line");
+    }
+    SignupRequest request = new SignupRequest();
+    request.setUsername(field(fields, usernameColumn));
+    request.setEmail(field(fields, emailColumn));
+    request.setPassword(field(fields, passwordColumn));
+    return new Row(line, request, null);
+  }
+
+  private void readHeader(String text) {
+    List<String> columns = splitCsv(text);
+    if (columns != null) {
+      for (int i = 0; i < columns.size(); i++) {
+        switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+          case "username" -> usernameColumn = i;
+          case "email" -> emailColumn = i;
+          case "password" -> passwordColumn = i;
+          default -> {}
+        }
+      }
+    }
+    if (usernameColumn < 0 || emailColumn < 0 || passwordColumn < 0) {
+      throw new BadRequestException(
+          "CSV header must name the username, email and password columns");
+    }
+  }
+
+  private static String field(List<String> fields, int column) {
+    return column < fields.size() ? fields.get(column) : null;
+  }
+
+  /** Splits an RFC 4180 line, or returns null if a quoted field is not closed. */
+  static List<String> splitCsv(String text) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"' && field.isEmpty()) {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      return null;
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
@@ -0,0 +1,245 @@
+package com.example.usermanagement.service;
+
+import com.example.usermanagement.dto.SignupRequest;
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.security.BcryptCostCalibrator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bulk-creates local users from a CSV or JSON Lines stream.
+ *
+ * <p>Rows are handled in batches of {@code batch-size}: passwords are hashed in parallel on a pool
+ * of its own (so an import never pushes logins into 503s), then the users and their {@code
+ * user_roles} rows are written with JDBC batches in one transaction per batch. {@code users} ids
+ * come from a single {@code nextval} round trip per batch, each value reserving a block of ids the
+ * same way Hibernate's pooled optimizer does, so the two never hand out the same id.
+ *
+ * <p>Rows are never held beyond their batch, and the report is written as it goes: one JSON line
+ * per rejected row, then a summary line.
+ */
+@Service
+@Slf4j
+public class UserImportService implements DisposableBean {
+  private static final String USER_ID_INCREMENT =
+      "SELECT increment_by FROM pg_sequences"
+          + " WHERE schemaname = current_schema() AND sequencename = 'users_id_seq'";
+  private static final String NEXT_USER_ID_BLOCKS =
+      "SELECT nextval('users_id_seq') FROM generate_series(1, ?)";
+  // ON CONFLICT leaves an update count of 0 for a taken username or email, so the row can be
+  // reported without failing the batch. Batched inserts must not be rewritten into multi-row
+  // statements (reWriteBatchedInserts), or the per-row counts are lost.
+  private static final String INSERT_USER =
+      "INSERT INTO users (id, username, email, password, provider, token_version, created_at,"
+          + " updated_at) VALUES (?, ?, ?, ?, 'LOCAL', 0, now(), now()) ON CONFLICT DO NOTHING";
+  private static final String INSERT_USER_ROLE =
+      "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+
+  public enum Format {
+    CSV,
+    JSON_LINES
+  }
+
+  public record ImportResult(long imported, long failed) {}
+
+  private record PendingUser(long line, SignupRequest request, Future<String> passwordHash) {}
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final RoleRegistry roleRegistry;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final PasswordEncoder passwordEncoder;
+  private final ExecutorService hashingPool;
+  private final int batchSize;
+
+  public UserImportService(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      RoleRegistry roleRegistry,
+      Validator validator,
+      ObjectMapper objectMapper,
+      BcryptCostCalibrator bcryptCostCalibrator,
+      @Value("${app.user-import.batch-size:500}") int batchSize,
+      @Value("${app.user-import.hashing-threads:0}") int hashingThreads) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.roleRegistry = roleRegistry;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.passwordEncoder = new BCryptPasswordEncoder(bcryptCostCalibrator.getStrength());
+    this.hashingPool =
+        Executors.newFixedThreadPool(
+            hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors(),
+            new CustomizableThreadFactory("user-import-hashing-"));
+    this.batchSize = batchSize;
+  }
+
+  public ImportResult importUsers(InputStream input, Format format, OutputStream reportOutput)
+      throws IOException {
+    UserImportReader reader = new UserImportReader(input, format, objectMapper);
+    long roleId = roleRegistry.get(Role.RoleName.ROLE_USER).getId();
+    long idIncrement = jdbcTemplate.queryForObject(USER_ID_INCREMENT, Long.class);
+    long imported = 0;
+    long failed = 0;
+
+    try (JsonGenerator report = objectMapper.getFactory().createGenerator(reportOutput)) {
+      // One JSON object per line; writeLine adds the newlines
+      report.setRootValueSeparator(null);
+      List<PendingUser> batch = new ArrayList<>(batchSize);
+      UserImportReader.Row row;
+      do {
+        row = reader.next();
+        if (row != null) {
+          String error = row.error() != null ? row.error() : validate(row.request());
+          if (error != null) {
+            writeError(report, row.line(), row.request(), error);
+            failed++;
+          } else {
+            batch.add(new PendingUser(row.line(), row.request(), hash(row.request())));
+          }
+        }
+        if (batch.size() == batchSize || (row == null && !batch.isEmpty())) {
+          int written = writeBatch(batch, roleId, idIncrement, report);
+          imported += written;
+          failed += batch.size() - written;
+          batch.clear();
+          report.flush();
+        }
+      } while (row != null);
+
+      report.writeStartObject();
+      report.writeNumberField("imported", imported);
+      report.writeNumberField("failed", failed);
+      writeLine(report);
+    }
+    log.info("User import finished: {} imported, {} failed", imported, failed);
+    return new ImportResult(imported, failed);
+  }
+
+  private String validate(SignupRequest request) {
+    Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  private Future<String> hash(SignupRequest request) {
+    String password = request.getPassword();
+    return hashingPool.submit(() -> passwordEncoder.encode(password));
+  }
+
+  /** Inserts a batch and reports rows that were rejected; returns how many were inserted. */
+  private int writeBatch(
+      List<PendingUser> batch, long roleId, long idIncrement, JsonGenerator report)
+      throws IOException {
+    List<Object[]> userRows = new ArrayList<>(batch.size());
+    for (PendingUser user : batch) {
+      SignupRequest request = user.request();
+      userRows.add(
+          new Object[] {
+            null, request.getUsername(), request.getEmail(), await(user.passwordHash())
+          });
+    }
+
+    int[] counts =
+        transactionTemplate.execute(
+            status -> {
+              Iterator<Long> ids = reserveUserIds(userRows.size(), idIncrement);
+              for (Object[] userRow : userRows) {
+                userRow[0] = ids.next();
+              }
+              int[] inserted = jdbcTemplate.batchUpdate(INSERT_USER, userRows);
+              List<Object[]> roleRows = new ArrayList<>(userRows.size());
+              for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] > 0) {
+                  roleRows.add(new Object[] {userRows.get(i)[0], roleId});
+                }
+              }
+              jdbcTemplate.batchUpdate(INSERT_USER_ROLE, roleRows);
+              return inserted;
+            });
+
+    int written = 0;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        written++;
+      } else {
+        PendingUser user = batch.get(i);
+        writeError(report, user.line(), user.request(), "Username or email already exists");
+      }
+    }
+    return written;
+  }
+
+  /** Each nextval value {@code v} reserves the ids {@code (v - increment, v]}, as for Hibernate. */
+  private Iterator<Long> reserveUserIds(int count, long increment) {
+    List<Long> blocks =
+        jdbcTemplate.queryForList(
+            NEXT_USER_ID_BLOCKS, Long.class, (count + increment - 1) / increment);
+    return blocks.stream()
+        .flatMap(v -> LongStream.rangeClosed(Math.max(1, v - increment + 1), v).boxed())
+        .iterator();
+  }
+
+  private static String await(Future<String> passwordHash) {
+    try {
+      return passwordHash.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing passwords", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  private static void writeError(
+      JsonGenerator report, long line, SignupRequest request, String error) throws IOException {
+    report.writeStartObject();
+    report.writeNumberField("line", line);
+    if (request != null && request.getEmail() != null) {
+      report.writeStringField("email", request.getEmail());
+    }
+    report.writeStringField("error", error);
+    writeLine(report);
+  }
+
+  private static void writeLine(JsonGenerator report) throws IOException {
+    report.writeEndObject();
+    report.writeRaw('\n');
+  }
+
+  @Override
+  public void destroy() {
+    hashingPool.shutdownNow();
+  }
+}
@@ -1,21 +1,50 @@
 package com.example.usermanagement.service;
 
+import com.example.usermanagement.dto.ProfilePictureUploadRequest;
+import com.example.usermanagement.dto.ProfilePictureUploadResponse;
 import com.example.usermanagement.dto.UpdateUserRequest;
 import com.example.usermanagement.dto.UserResponse;
 import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.BadRequestException;
+import com.example.usermanagement.exception.PayloadTooLargeException;
+import com.example.usermanagement.exception.UnsupportedMediaTypeException;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.UserChangedEvent;
 import com.example.usermanagement.security.UserPrincipal;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
   private final UserRepository userRepository;
   private final S3Service s3Service;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ProfilePictureUrls profilePictureUrls;
+  private final ProfilePictureThumbnails profilePictureThumbnails;
+
+  @Value("${app.profile-picture.max-size:10MB}")
+  private DataSize maxPictureSize;
+
+  @Value("${app.profile-picture.upload-url-ttl:10m}")
+  private Duration uploadUrlTtl;
 
   public UserResponse getUserProfile(UserPrincipal currentUser) {
     User user =
@@ -23,7 +52,7 @@ public class UserService {
             .findById(currentUser.getId())
             .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-    return UserResponse.fromUser(user);
+    return toResponse(user);
   }
 
   @Transactional
@@ -44,7 +73,8 @@ public class UserService {
     }
 
     User updatedUser = userRepository.save(user);
-    return UserResponse.fromUser(updatedUser);
+    eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+    return toResponse(updatedUser);
   }
 
   @Transactional
@@ -56,14 +86,149 @@ public class UserService {
 
     // Delete old profile picture if exists
     if (user.getProfilePictureUrl() != null) {
-      s3Service.deleteFile(user.getProfilePictureUrl());
+      deletePicture(user.getProfilePictureUrl(), user.getProfilePictureThumbnails());
     }
 
     String pictureUrl = s3Service.uploadFile(file, "profile-pictures/" + user.getId());
     user.setProfilePictureUrl(pictureUrl);
+    user.setProfilePictureThumbnails(null);
 
     User updatedUser = userRepository.save(user);
-    return UserResponse.fromUser(updatedUser);
+    eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+    eventPublisher.publishEvent(new ProfilePictureChangedEvent(user.getId(), pictureUrl));
+    return toResponse(updatedUser);
+  }
+
+  /**
+   * Replaces the profile picture with an image streamed from the request body. Nothing is spooled
+   * first: the declared type and length are checked up front, the leading bytes before anything is
+   * stored, and the size again while streaming. No transaction is held during the upload, and the
+   * previous picture is only deleted once the new one is recorded.
+   */
+  public UserResponse updateProfilePicture(
+      UserPrincipal currentUser, InputStream content, String contentType, long contentLength)
+      throws IOException {
+    ProfilePictureType type = ProfilePictureType.fromContentType(contentType);
+    long maxSize = maxPictureSize.toBytes();
+    if (contentLength > maxSize) {
+      throw new PayloadTooLargeException("File is larger than " + maxSize + " bytes");
+    }
+    User previous =
+        userRepository
+            .findById(currentUser.getId())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+    InputStream input = new BufferedInputStream(content);
+    input.mark(ProfilePictureType.HEADER_LENGTH);
+    if (!type.matches(input.readNBytes(ProfilePictureType.HEADER_LENGTH))) {
+      throw new UnsupportedMediaTypeException("File content is not " + type.getContentType());
+    }
+    input.reset();
+
+    String pictureUrl =
+        s3Service.uploadStream(
+            input,
+            "profile-pictures/" + currentUser.getId(),
+            type.getContentType(),
+            type.getExtension(),
+            maxSize);
+    if (userRepository.updateProfilePictureUrl(currentUser.getId(), pictureUrl) == 0) {
+      s3Service.deleteFile(pictureUrl);
+      throw new UsernameNotFoundException("User not found");
+    }
+    eventPublisher.publishEvent(new UserChangedEvent(currentUser.getId()));
+    eventPublisher.publishEvent(new ProfilePictureChangedEvent(currentUser.getId(), pictureUrl));
+    deletePicture(previous.getProfilePictureUrl(), previous.getProfilePictureThumbnails());
+
+    return toResponse(
+        userRepository
+            .findById(currentUser.getId())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+  }
+
+  /**
+   * First step of a direct upload: a presigned PUT for a new key under the user's directory, bound
+   * to the declared type and length. The image bytes then go from the client to storage and never
+   * through this application.
+   */
+  public ProfilePictureUploadResponse createProfilePictureUpload(
+      UserPrincipal currentUser, ProfilePictureUploadRequest request) {
+    ProfilePictureType type = ProfilePictureType.fromContentType(request.getContentType());
+    if (request.getContentLength() > maxPictureSize.toBytes()) {
+      throw new PayloadTooLargeException(
+          "File is larger than " + maxPictureSize.toBytes() + " bytes");
+    }
+    String key = pictureDirectory(currentUser.getId()) + UUID.randomUUID() + type.getExtension();
+    PresignedPutObjectRequest presigned =
+        s3Service.presignUpload(
+            key, type.getContentType(), request.getContentLength(), uploadUrlTtl);
+
+    Map<String, String> headers = new LinkedHashMap<>();
+    presigned
+        .signedHeaders()
+        .forEach(
+            (name, values) -> {
+              // The HTTP client sets Host from the URL
+              if (!name.equalsIgnoreCase("host")) {
+                headers.put(name, String.join(",", values));
+              }
+            });
+    return ProfilePictureUploadResponse.builder()
+        .uploadUrl(presigned.url().toString())
+        .headers(headers)
+        .key(key)
+        .expiresAt(presigned.expiration())
+        .build();
+  }
+
+  /**
+   * Second step of a direct upload: checks that the object exists directly in the user's directory,
+   * not in a subdirectory such as that of the thumbnails, and is an acceptable image, then makes it
+   * the profile picture and deletes the previous one. Confirming the current picture again changes
+   * nothing; it is never checked, as that would delete it if it failed, and pictures stored before
+   * these checks existed may not pass them.
+   */
+  public UserResponse confirmProfilePicture(UserPrincipal currentUser, String key) {
+    String directory = pictureDirectory(currentUser.getId());
+    if (!key.startsWith(directory)
+        || key.indexOf('/', directory.length()) >= 0
+        || key.contains("..")) {
+      throw new BadRequestException("Not an upload of this user");
+    }
+    User previous =
+        userRepository
+            .findById(currentUser.getId())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    if (key.equals(previous.getProfilePictureUrl())) {
+      return toResponse(previous);
+    }
+
+    HeadObjectResponse object =
+        s3Service.headFile(key).orElseThrow(() -> new BadRequestException("Upload not found"));
+    try {
+      ProfilePictureType.fromContentType(object.contentType());
+      if (object.contentLength() > maxPictureSize.toBytes()) {
+        throw new PayloadTooLargeException(
+            "File is larger than " + maxPictureSize.toBytes() + " bytes");
+      }
+    } catch (RuntimeException e) {
+      s3Service.deleteFile(key);
+      throw e;
+    }
+
+    userRepository.updateProfilePictureUrl(currentUser.getId(), key);
+    eventPublisher.publishEvent(new UserChangedEvent(currentUser.getId()));
+    eventPublisher.publishEvent(new ProfilePictureChangedEvent(currentUser.getId(), key));
+    deletePicture(previous.getProfilePictureUrl(), previous.getProfilePictureThumbnails());
+
+    return toResponse(
+        userRepository
+            .findById(currentUser.getId())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+  }
+
+  private static String pictureDirectory(Long userId) {
+    return "profile-pictures/" + userId + "/";
   }
 
   public UserResponse deleteProfilePicture(UserPrincipal currentUser) {
@@ -73,12 +238,40 @@ public class UserService {
             .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
     if (user.getProfilePictureUrl() != null) {
-      s3Service.deleteFile(user.getProfilePictureUrl());
+      deletePicture(user.getProfilePictureUrl(), user.getProfilePictureThumbnails());
       user.setProfilePictureUrl(null);
+      user.setProfilePictureThumbnails(null);
       User updatedUser = userRepository.save(user);
-      return UserResponse.fromUser(updatedUser);
+      eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+      return toResponse(updatedUser);
+    }
+
+    return toResponse(user);
+  }
+
+  /** Deletes a picture that is no longer in use, along with its thumbnails. */
+  private void deletePicture(String key, Integer[] thumbnailSizes) {
+    s3Service.deleteFile(key);
+    profilePictureUrls.evict(key);
+    if (StringUtils.hasText(key) && !key.startsWith("http")) {
+      for (String variant : profilePictureThumbnails.variantKeys(key, thumbnailSizes)) {
+        s3Service.deleteFile(variant);
+        profilePictureUrls.evict(variant);
+      }
     }
+  }
 
-    return UserResponse.fromUser(user);
+  private UserResponse toResponse(User user) {
+    Map<Integer, String> thumbnails = new TreeMap<>();
+    if (user.getProfilePictureThumbnails() != null) {
+      for (Integer size : user.getProfilePictureThumbnails()) {
+        thumbnails.put(
+            size,
+            profilePictureUrls.resolve(
+                ProfilePictureThumbnails.variantKey(user.getProfilePictureUrl(), size)));
+      }
+    }
+    return UserResponse.fromUser(
+        user, profilePictureUrls.resolve(user.getProfilePictureUrl()), thumbnails);
   }
 }
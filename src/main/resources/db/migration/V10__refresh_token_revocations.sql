@@ -0,0 +1,12 @@
+-- Session families revoked while refresh tokens are stateless (app.refresh-tokens.stateless).
+-- Each node keeps them in memory; rows are loaded at startup, polled for changes made by other
+-- nodes, and dropped once every token of the family has expired.
+CREATE TABLE IF NOT EXISTS refresh_token_revocations
+(
+    family_id  UUID PRIMARY KEY,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX refresh_token_revocations_revoked_at_idx ON refresh_token_revocations (revoked_at);
+CREATE INDEX refresh_token_revocations_expires_at_idx ON refresh_token_revocations (expires_at);
@@ -0,0 +1,11 @@
+-- Individually revoked access tokens, by jti. Every node keeps the unexpired ones in memory and
+-- hears about new ones via NOTIFY on the token_revocations channel; this table lets a node that
+-- starts or reconnects catch up on the notifications it missed.
+CREATE TABLE IF NOT EXISTS access_token_revocations
+(
+    jti        VARCHAR(36) PRIMARY KEY,
+    revoked_at TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP   NOT NULL
+);
+
+CREATE INDEX access_token_revocations_expires_at_idx ON access_token_revocations (expires_at);
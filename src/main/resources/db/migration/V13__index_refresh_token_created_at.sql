@@ -0,0 +1,3 @@
+-- Lets a session revocation by creation window find the affected users without scanning every
+-- session for each page. Not CONCURRENTLY, as refresh_tokens may be partitioned (see V9).
+CREATE INDEX IF NOT EXISTS refresh_tokens_created_at_user_id_idx ON refresh_tokens (created_at, user_id);
@@ -0,0 +1,7 @@
+-- Stamps each revocation with the id of the transaction that wrote it, so other nodes can poll by
+-- commit order rather than by revoked_at, which is taken before the transaction commits.
+ALTER TABLE refresh_token_revocations
+    ADD COLUMN IF NOT EXISTS xid XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX IF NOT EXISTS refresh_token_revocations_xid_idx ON refresh_token_revocations (xid);
+DROP INDEX IF EXISTS refresh_token_revocations_revoked_at_idx;
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS jwt_signing_keys
+(
+    kid         VARCHAR(64) PRIMARY KEY,
+    algorithm   VARCHAR(10) NOT NULL,
+    public_key  BYTEA       NOT NULL, -- X.509 SubjectPublicKeyInfo
+    private_key BYTEA       NOT NULL, -- PKCS#8, AES-GCM encrypted with a key derived from app.jwt.secret
+    created_at  TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,7 @@
+-- Hibernate allocates ids from these sequences in blocks (pooled optimizer), so each nextval must
+-- advance by the block size. The BIGSERIAL column defaults keep working for plain SQL inserts.
+-- Changing idAllocationSize later needs a new migration; the entities adopt whatever increment
+-- the sequences have (hibernate.id.sequence.increment_size_mismatch_strategy=fix).
+ALTER SEQUENCE users_id_seq INCREMENT BY ${idAllocationSize};
+ALTER SEQUENCE refresh_tokens_id_seq INCREMENT BY ${idAllocationSize};
+ALTER SEQUENCE roles_id_seq INCREMENT BY ${idAllocationSize};
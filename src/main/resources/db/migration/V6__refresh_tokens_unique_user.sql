@@ -0,0 +1,12 @@
+-- One refresh token per user, so issuing one can be a single INSERT ... ON CONFLICT (user_id).
+-- Keep the newest token of users that ended up with several through concurrent logins.
+DELETE FROM refresh_tokens
+WHERE user_id IS NULL
+   OR id NOT IN (SELECT DISTINCT ON (user_id) id
+                 FROM refresh_tokens
+                 WHERE user_id IS NOT NULL
+                 ORDER BY user_id, expiry_date DESC, id DESC);
+
+ALTER TABLE refresh_tokens
+    ALTER COLUMN user_id SET NOT NULL,
+    ADD CONSTRAINT refresh_tokens_user_id_key UNIQUE (user_id);
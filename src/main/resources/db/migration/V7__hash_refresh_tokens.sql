@@ -0,0 +1,10 @@
+-- Store a SHA-256 digest of each refresh token instead of the token itself. Clients keep their
+-- tokens: the service hashes whatever is presented and looks the digest up.
+ALTER TABLE refresh_tokens ADD COLUMN token_hash BYTEA;
+
+UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8'));
+
+ALTER TABLE refresh_tokens
+    ALTER COLUMN token_hash SET NOT NULL,
+    ADD CONSTRAINT refresh_tokens_token_hash_key UNIQUE (token_hash),
+    DROP COLUMN token;
@@ -0,0 +1,3 @@
+-- Lets the expired-token reaper find a chunk of expired rows without scanning the table.
+-- CONCURRENTLY keeps logins writing while the index builds; Flyway runs it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS refresh_tokens_expiry_date_idx ON refresh_tokens (expiry_date);
@@ -0,0 +1,23 @@
+-- Refresh tokens become per-device session families. A row is one family: the current token, the
+-- one it replaced (to detect reuse of a rotated-out token) and some device metadata. Users may
+-- hold several families, so user_id is no longer unique. Works on the plain and the partitioned
+-- layout alike (indexes on a partitioned table cannot be built CONCURRENTLY).
+ALTER TABLE refresh_tokens
+    ADD COLUMN family_id           UUID,
+    ADD COLUMN previous_token_hash BYTEA,
+    ADD COLUMN device_name         VARCHAR(100),
+    ADD COLUMN last_used_at        TIMESTAMP;
+
+UPDATE refresh_tokens
+SET family_id    = gen_random_uuid(),
+    last_used_at = coalesce(created_at, CURRENT_TIMESTAMP);
+
+ALTER TABLE refresh_tokens
+    ALTER COLUMN family_id SET NOT NULL,
+    ALTER COLUMN last_used_at SET NOT NULL,
+    ALTER COLUMN last_used_at SET DEFAULT CURRENT_TIMESTAMP,
+    DROP CONSTRAINT IF EXISTS refresh_tokens_user_id_key;
+
+CREATE INDEX IF NOT EXISTS refresh_tokens_user_id_idx ON refresh_tokens (user_id);
+CREATE INDEX refresh_tokens_family_id_idx ON refresh_tokens (family_id);
+CREATE INDEX refresh_tokens_previous_token_hash_idx ON refresh_tokens (previous_token_hash);
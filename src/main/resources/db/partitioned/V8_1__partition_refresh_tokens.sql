@@ -0,0 +1,43 @@
+-- Optional: range-partitions refresh_tokens by expiry month, so expired tokens go away by dropping
+-- a whole partition instead of deleting rows. Enabled by adding classpath:db/partitioned to
+-- spring.flyway.locations; RefreshTokenPartitions then creates future partitions and drops expired
+-- ones. Expired rows are not carried over.
+--
+-- A unique constraint on a partitioned table must include expiry_date, so the primary key becomes
+-- (id, expiry_date) and user_id is no longer unique; issuing a token then locks the user row.
+ALTER TABLE refresh_tokens RENAME TO refresh_tokens_unpartitioned;
+
+CREATE TABLE refresh_tokens
+(
+    LIKE refresh_tokens_unpartitioned INCLUDING DEFAULTS
+) PARTITION BY RANGE (expiry_date);
+
+ALTER SEQUENCE refresh_tokens_id_seq OWNED BY refresh_tokens.id;
+
+DO $$
+DECLARE
+    month DATE := date_trunc('month', now());
+    last  DATE := greatest(date_trunc('month', now()) + INTERVAL '3 months',
+                           (SELECT date_trunc('month', max(expiry_date)) FROM refresh_tokens_unpartitioned));
+BEGIN
+    WHILE month <= last LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF refresh_tokens FOR VALUES FROM (%L) TO (%L)',
+                       'refresh_tokens_p' || to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO refresh_tokens
+SELECT *
+FROM refresh_tokens_unpartitioned
+WHERE expiry_date >= now();
+
+DROP TABLE refresh_tokens_unpartitioned;
+
+ALTER TABLE refresh_tokens
+    ADD CONSTRAINT refresh_tokens_pkey PRIMARY KEY (id, expiry_date),
+    ADD CONSTRAINT refresh_tokens_user_id_fkey FOREIGN KEY (user_id) REFERENCES users (id);
+
+CREATE INDEX refresh_tokens_token_hash_idx ON refresh_tokens (token_hash);
+CREATE INDEX refresh_tokens_user_id_idx ON refresh_tokens (user_id);
+CREATE INDEX refresh_tokens_expiry_date_idx ON refresh_tokens (expiry_date);
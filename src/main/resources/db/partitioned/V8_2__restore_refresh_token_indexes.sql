@@ -0,0 +1,18 @@
+-- V8_1 rebuilds refresh_tokens with only the indexes that existed at V8. When the partitioned
+-- layout is enabled on a database that is already past V8, Flyway runs V8_1 out of order and the
+-- indexes later migrations added go away with the old table; this puts them back. On a new
+-- database it only creates those whose columns exist by now, and the rest come with their own
+-- migrations. A later migration that indexes refresh_tokens belongs here too.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1
+               FROM information_schema.columns
+               WHERE table_schema = current_schema()
+                 AND table_name = 'refresh_tokens'
+                 AND column_name = 'family_id') THEN
+        CREATE INDEX IF NOT EXISTS refresh_tokens_family_id_idx ON refresh_tokens (family_id);
+        CREATE INDEX IF NOT EXISTS refresh_tokens_previous_token_hash_idx ON refresh_tokens (previous_token_hash);
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS refresh_tokens_created_at_user_id_idx ON refresh_tokens (created_at, user_id);
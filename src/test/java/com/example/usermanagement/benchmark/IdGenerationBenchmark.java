@@ -0,0 +1,191 @@
+package com.example.usermanagement.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of writing signups (a user plus its role) and refresh tokens with the statements Hibernate
+ * issues under {@code IDENTITY} ids, one {@code INSERT ... RETURNING} per row, and under pooled
+ * sequence ids, one {@code nextval} per 50 rows and batched inserts.
+ *
+ * <p>Needs a PostgreSQL database; the benchmark creates and drops its own tables. Run with {@code
+ * BENCHMARK_DATASOURCE_URL=jdbc:postgresql://localhost:5432/user_management mvn -Pbenchmark verify
+ * -Djmh.includes=IdGenerationBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IdGenerationBenchmark {
+  private static final int ALLOCATION_SIZE = 50;
+
+  @Param({"1", "50"})
+  public int rowsPerTransaction;
+
+  private Connection connection;
+  private long nextId;
+  private long idLimit;
+
+  @Setup
+  public void setUp() throws SQLException {
+    connection =
+        DriverManager.getConnection(
+            System.getenv()
+                .getOrDefault(
+                    "BENCHMARK_DATASOURCE_URL", "jdbc:postgresql://localhost:5432/user_management"),
+            System.getenv().getOrDefault("BENCHMARK_DATASOURCE_USERNAME", "user"),
+            System.getenv().getOrDefault("BENCHMARK_DATASOURCE_PASSWORD", "password"));
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "CREATE TEMPORARY TABLE bench_identity_users (id BIGINT GENERATED BY DEFAULT AS IDENTITY"
+              + " PRIMARY KEY, username VARCHAR(50), email VARCHAR(100), password VARCHAR(120))");
+      statement.execute(
+          "CREATE TEMPORARY TABLE bench_pooled_users (id BIGINT PRIMARY KEY, username"
+              + " VARCHAR(50), email VARCHAR(100), password VARCHAR(120))");
+      statement.execute("CREATE TEMPORARY TABLE bench_user_roles (user_id BIGINT, role_id BIGINT)");
+      statement.execute(
+          "CREATE TEMPORARY TABLE bench_identity_tokens (id BIGINT GENERATED BY DEFAULT AS"
+              + " IDENTITY PRIMARY KEY, user_id BIGINT, token VARCHAR(500), expiry_date"
+              + " TIMESTAMP)");
+      statement.execute(
+          "CREATE TEMPORARY TABLE bench_pooled_tokens (id BIGINT PRIMARY KEY, user_id BIGINT,"
+              + " token VARCHAR(500), expiry_date TIMESTAMP)");
+      statement.execute("CREATE TEMPORARY SEQUENCE bench_id_seq INCREMENT BY " + ALLOCATION_SIZE);
+    }
+    connection.setAutoCommit(false);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Benchmark
+  public long identitySignups() throws SQLException {
+    long last = 0;
+    try (PreparedStatement users =
+            connection.prepareStatement(
+                "INSERT INTO bench_identity_users (username, email, password) VALUES (?, ?, ?)",
+                new String[] {"id"});
+        PreparedStatement roles =
+            connection.prepareStatement(
+                "INSERT INTO bench_user_roles (user_id, role_id) VALUES (?, ?)")) {
+      for (int i = 0; i < rowsPerTransaction; i++) {
+        bindUser(users, 1);
+        users.executeUpdate();
+        try (ResultSet keys = users.getGeneratedKeys()) {
+          keys.next();
+          last = keys.getLong(1);
+        }
+        roles.setLong(1, last);
+        roles.setLong(2, 1);
+        roles.addBatch();
+      }
+      roles.executeBatch();
+    }
+    connection.commit();
+    return last;
+  }
+
+  @Benchmark
+  public long pooledSignups() throws SQLException {
+    long last = 0;
+    try (PreparedStatement users =
+            connection.prepareStatement(
+                "INSERT INTO bench_pooled_users (username, email, password, id) VALUES (?, ?, ?,"
+                    + " ?)");
+        PreparedStatement roles =
+            connection.prepareStatement(
+                "INSERT INTO bench_user_roles (user_id, role_id) VALUES (?, ?)")) {
+      for (int i = 0; i < rowsPerTransaction; i++) {
+        last = nextId();
+        bindUser(users, 1);
+        users.setLong(4, last);
+        users.addBatch();
+        roles.setLong(1, last);
+        roles.setLong(2, 1);
+        roles.addBatch();
+      }
+      users.executeBatch();
+      roles.executeBatch();
+    }
+    connection.commit();
+    return last;
+  }
+
+  @Benchmark
+  public long identityRefreshTokens() throws SQLException {
+    long last = 0;
+    try (PreparedStatement tokens =
+        connection.prepareStatement(
+            "INSERT INTO bench_identity_tokens (user_id, token, expiry_date) VALUES (?, ?, ?)",
+            new String[] {"id"})) {
+      for (int i = 0; i < rowsPerTransaction; i++) {
+        bindToken(tokens, 1);
+        tokens.executeUpdate();
+        try (ResultSet keys = tokens.getGeneratedKeys()) {
+          keys.next();
+          last = keys.getLong(1);
+        }
+      }
+    }
+    connection.commit();
+    return last;
+  }
+
+  @Benchmark
+  public long pooledRefreshTokens() throws SQLException {
+    long last = 0;
+    try (PreparedStatement tokens =
+        connection.prepareStatement(
+            "INSERT INTO bench_pooled_tokens (user_id, token, expiry_date, id) VALUES (?, ?, ?,"
+                + " ?)")) {
+      for (int i = 0; i < rowsPerTransaction; i++) {
+        last = nextId();
+        bindToken(tokens, 1);
+        tokens.setLong(4, last);
+        tokens.addBatch();
+      }
+      tokens.executeBatch();
+    }
+    connection.commit();
+    return last;
+  }
+
+  /** Hands out ids the way Hibernate's pooled optimizer does, one sequence call per block. */
+  private long nextId() throws SQLException {
+    if (nextId == idLimit) {
+      try (Statement statement = connection.createStatement();
+          ResultSet rs = statement.executeQuery("SELECT nextval('bench_id_seq')")) {
+        rs.next();
+        idLimit = rs.getLong(1);
+        nextId = idLimit - ALLOCATION_SIZE;
+      }
+    }
+    return ++nextId;
+  }
+
+  private static void bindUser(PreparedStatement statement, int offset) throws SQLException {
+    String name = UUID.randomUUID().toString().substring(0, 20);
+    statement.setString(offset, name);
+    statement.setString(offset + 1, name + "@example.com");
+    statement.setString(offset + 2, "$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchma");
+  }
+
+  private static void bindToken(PreparedStatement statement, int offset) throws SQLException {
+    statement.setLong(offset, 42);
+    statement.setString(offset + 1, UUID.randomUUID().toString());
+    statement.setTimestamp(offset + 2, Timestamp.from(Instant.now().plusSeconds(3600)));
+  }
+}
@@ -0,0 +1,97 @@
+package com.example.usermanagement.benchmark;
+
+import com.example.usermanagement.security.HmacJwtVerifier;
+import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Throughput and allocation of access-token verification: jjwt with a parser built per call (the
+ * original {@code JwtTokenProvider} path), jjwt with a shared parser, and {@link HmacJwtVerifier}.
+ * Each is measured on a plain token and on a self-contained principal token, and the last two also
+ * on a new virtual thread per call, as requests run with {@code spring.threads.virtual.enabled}.
+ *
+ * <p>Run with {@code mvn -Pbenchmark verify -Djmh.includes=JwtVerificationBenchmark}; the gc
+ * profiler reports {@code gc.alloc.rate.norm} in bytes per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+  private static final String SECRET =
+      "benchmarkSecretKeyWithMinimum256BitsForHS512SignatureAlgorithm";
+
+  @Param({"false", "true"})
+  public boolean selfContained;
+
+  private SecretKey key;
+  private JwtParser sharedParser;
+  private HmacJwtVerifier fastPath;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    key = Keys.hmacShaKeyFor(SECRET.getBytes());
+    sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+    fastPath = new HmacJwtVerifier(key);
+
+    JwtTokenProvider tokenProvider = new JwtTokenProvider(SECRET, 3600000, 86400000, selfContained);
+    UserPrincipal principal =
+        new UserPrincipal(
+            42L,
+            "bench@example.com",
+            null,
+            List.of(new SimpleGrantedAuthority("ROLE_USER")),
+            null,
+            0);
+    token =
+        tokenProvider.generateAccessToken(
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+  }
+
+  @Benchmark
+  public Claims jjwtParserPerCall() {
+    return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+  }
+
+  @Benchmark
+  public Claims jjwtSharedParser() {
+    return sharedParser.parseClaimsJws(token).getBody();
+  }
+
+  @Benchmark
+  public VerifiedToken hmacFastPath() {
+    return fastPath.verify(token);
+  }
+
+  @Benchmark
+  public Claims jjwtSharedParserVirtualThread() throws InterruptedException {
+    return onVirtualThread(() -> sharedParser.parseClaimsJws(token).getBody());
+  }
+
+  @Benchmark
+  public VerifiedToken hmacFastPathVirtualThread() throws InterruptedException {
+    return onVirtualThread(() -> fastPath.verify(token));
+  }
+
+  private static <T> T onVirtualThread(Supplier<T> task) throws InterruptedException {
+    AtomicReference<T> result = new AtomicReference<>();
+    Thread.ofVirtual().start(() -> result.set(task.get())).join();
+    return result.get();
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.usermanagement.benchmark;
+
+import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.VerifiedToken;
+import com.example.usermanagement.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * Per-request cost of turning a bearer token into a user id, as done by {@code
+ * JwtAuthenticationFilter}: the original validate-then-parse sequence, a single verification, and
+ * the verified-token cache.
+ *
+ * <p>Run with {@code mvn -Pbenchmark verify -Djmh.includes=VerifiedTokenCacheBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerifiedTokenCacheBenchmark {
+  private JwtTokenProvider tokenProvider;
+  private VerifiedTokenCache cache;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    tokenProvider =
+        new JwtTokenProvider(
+            "benchmarkSecretKeyWithMinimum256BitsForHS512SignatureAlgorithm", 3600000, 86400000);
+    cache = new VerifiedTokenCache(tokenProvider, new SimpleMeterRegistry(), true, 100000);
+    UserPrincipal principal =
+        new UserPrincipal(42L, "bench@example.com", null, Collections.emptyList(), null);
+    token =
+        tokenProvider.generateAccessToken(
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    cache.verify(token);
+  }
+
+  @Benchmark
+  public Long validateThenParse() {
+    return tokenProvider.validateToken(token) ? tokenProvider.getUserIdFromToken(token) : null;
+  }
+
+  @Benchmark
+  public Optional<VerifiedToken> verifyOnce() {
+    return tokenProvider.verifyToken(token);
+  }
+
+  @Benchmark
+  public Optional<VerifiedToken> cached() {
+    return cache.verify(token);
+  }
+}
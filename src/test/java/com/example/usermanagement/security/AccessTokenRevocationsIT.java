@@ -0,0 +1,112 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.usermanagement.repository.AccessTokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("it")
+class AccessTokenRevocationsIT {
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  @Autowired private AccessTokenRevocations accessTokenRevocations;
+  @Autowired private AccessTokenRevocationRepository revocationRepository;
+  @Autowired private CustomUserDetailsService userDetailsService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  @Value("${spring.datasource.url}")
+  private String url;
+
+  @Value("${spring.datasource.username}")
+  private String username;
+
+  @Value("${spring.datasource.password}")
+  private String password;
+
+  private AccessTokenRevocations otherNode;
+
+  @BeforeEach
+  void setUp() {
+    otherNode =
+        new AccessTokenRevocations(
+            revocationRepository,
+            jdbcTemplate,
+            eventPublisher,
+            new SimpleMeterRegistry(),
+            true,
+            url,
+            username,
+            password);
+    otherNode.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    otherNode.stop();
+  }
+
+  private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+    Instant deadline = Instant.now().plus(TIMEOUT);
+    while (Instant.now().isBefore(deadline)) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      Thread.sleep(20);
+    }
+    return false;
+  }
+
+  @Test
+  @DisplayName("Should deny a token revoked on one node on the others")
+  void shouldPropagateRevocation() throws Exception {
+    // Arrange
+    String jti = UUID.randomUUID().toString();
+
+    // Act
+    otherNode.revoke(jti, Instant.now().plusSeconds(60));
+
+    // Assert
+    assertThat(eventually(() -> accessTokenRevocations.isRevoked(jti))).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should drop principals cached on other nodes when a user changes")
+  void shouldPropagateUserChanges() throws Exception {
+    // Arrange
+    jdbcTemplate.update("DELETE FROM users WHERE username = 'it_revocations'");
+    Long userId =
+        jdbcTemplate.queryForObject(
+            "INSERT INTO users (username, email, provider) VALUES ('it_revocations',"
+                + " 'it_revocations@example.com', 'LOCAL') RETURNING id",
+            Long.class);
+    userDetailsService.loadUserById(userId);
+    jdbcTemplate.update("UPDATE users SET token_version = token_version + 1 WHERE id = ?", userId);
+
+    // Act
+    otherNode.onUserChanged(new UserChangedEvent(userId));
+
+    // Assert
+    assertThat(
+            eventually(
+                () ->
+                    ((UserPrincipal) userDetailsService.loadUserById(userId)).getTokenVersion()
+                        == 1))
+        .isTrue();
+  }
+}
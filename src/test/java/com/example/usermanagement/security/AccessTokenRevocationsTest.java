@@ -0,0 +1,132 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.entity.AccessTokenRevocation;
+import com.example.usermanagement.repository.AccessTokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenRevocationsTest {
+  @Mock private AccessTokenRevocationRepository revocationRepository;
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  private AccessTokenRevocations revocations;
+
+  @BeforeEach
+  void setUp() {
+    revocations =
+        new AccessTokenRevocations(
+            revocationRepository,
+            jdbcTemplate,
+            eventPublisher,
+            new SimpleMeterRegistry(),
+            false,
+            "",
+            "",
+            "");
+  }
+
+  private String published() {
+    ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+    verify(jdbcTemplate)
+        .query(
+            eq("SELECT pg_notify(?, ?)"),
+            ArgumentMatchers.<ResultSetExtractor<Object>>any(),
+            eq(AccessTokenRevocations.CHANNEL),
+            payload.capture());
+    return payload.getValue();
+  }
+
+  @Test
+  @DisplayName("Should deny a revoked token here at once and tell the other nodes")
+  void shouldRevokeAndNotify() {
+    // Arrange
+    Instant expiresAt = Instant.now().plusSeconds(60);
+
+    // Act
+    revocations.revoke("jti-1", expiresAt);
+
+    // Assert
+    assertThat(revocations.isRevoked("jti-1")).isTrue();
+    assertThat(revocations.isRevoked("jti-2")).isFalse();
+    assertThat(revocations.isRevoked(null)).isFalse();
+    verify(revocationRepository).insert(eq("jti-1"), any(Instant.class), eq(expiresAt));
+    assertThat(published()).endsWith(" jti jti-1 " + expiresAt.getEpochSecond());
+  }
+
+  @Test
+  @DisplayName("Should apply revocations and user changes heard from other nodes")
+  void shouldReceiveFromOtherNodes() {
+    // Act
+    revocations.receive("other-node jti jti-1 " + Instant.now().plusSeconds(60).getEpochSecond());
+    revocations.receive("other-node user 7");
+
+    // Assert
+    assertThat(revocations.isRevoked("jti-1")).isTrue();
+    verify(eventPublisher).publishEvent(new UserChangedEvent(7L, true));
+  }
+
+  @Test
+  @DisplayName("Should ignore its own notifications and relay only local user changes")
+  void shouldNotEcho() {
+    // Arrange
+    revocations.onUserChanged(new UserChangedEvent(7L));
+    String own = published();
+
+    // Act
+    revocations.receive(own);
+    revocations.onUserChanged(new UserChangedEvent(8L, true));
+    revocations.receive("malformed");
+
+    // Assert
+    verify(eventPublisher, never()).publishEvent(any());
+    assertThat(published()).isEqualTo(own).endsWith(" user 7");
+  }
+
+  @Test
+  @DisplayName("Should reload unexpired revocations and purge expired ones")
+  void shouldReloadAndPurge() {
+    // Arrange
+    when(revocationRepository.findByExpiresAtAfter(any()))
+        .thenReturn(
+            List.of(
+                new AccessTokenRevocation("expiring", Instant.now(), Instant.now().plusMillis(50)),
+                new AccessTokenRevocation("live", Instant.now(), Instant.now().plusSeconds(60))));
+    revocations.start();
+
+    // Act
+    await(Instant.now().plusMillis(100));
+    revocations.purge();
+
+    // Assert
+    assertThat(revocations.isRevoked("expiring")).isFalse();
+    assertThat(revocations.isRevoked("live")).isTrue();
+    verify(revocationRepository).deleteExpired(any(Instant.class));
+  }
+
+  private static void await(Instant until) {
+    while (Instant.now().isBefore(until)) {
+      Thread.onSpinWait();
+    }
+  }
+}
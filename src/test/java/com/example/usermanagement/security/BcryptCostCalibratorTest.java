@@ -0,0 +1,41 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+class BcryptCostCalibratorTest {
+
+  @Test
+  @DisplayName("Should use the fixed strength when calibration is disabled")
+  void shouldUseFixedStrength() {
+    // Act
+    BcryptCostCalibrator calibrator = new BcryptCostCalibrator(11, false, 250, 10, 14, 10);
+
+    // Assert
+    assertThat(calibrator.getStrength()).isEqualTo(11);
+  }
+
+  @Test
+  @DisplayName("Should pick the highest cost within the budget")
+  void shouldPickHighestCostWithinBudget() {
+    // Act & Assert
+    assertThat(BcryptCostCalibrator.calibrate(10_000, 4, 6, 3)).isEqualTo(6);
+    assertThat(BcryptCostCalibrator.calibrate(-1, 4, 6, 3)).isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("Should flag hashes made with a different cost")
+  void shouldFlagHashesWithDifferentCost() {
+    // Arrange
+    BcryptCostCalibrator calibrator = new BcryptCostCalibrator(5, false, 250, 10, 14, 10);
+
+    // Act & Assert
+    assertThat(calibrator.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(5)))).isFalse();
+    assertThat(calibrator.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(4)))).isTrue();
+    assertThat(calibrator.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(6)))).isTrue();
+    assertThat(calibrator.needsRehash(null)).isFalse();
+  }
+}
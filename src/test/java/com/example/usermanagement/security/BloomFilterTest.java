@@ -0,0 +1,34 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  @DisplayName("Should never miss a key and stay near the configured false positive rate")
+  void shouldHaveNoFalseNegatives() {
+    // Arrange
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+    // Act
+    for (long key = 0; key < 10_000; key++) {
+      filter.put(key);
+    }
+
+    // Assert
+    for (long key = 0; key < 10_000; key++) {
+      assertThat(filter.mightContain(key)).isTrue();
+    }
+    long falsePositives = 0;
+    for (long key = 10_000; key < 110_000; key++) {
+      if (filter.mightContain(key)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    assertThat(filter.hashCount()).isEqualTo(7);
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.usermanagement.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private BoundedPasswordEncoder passwordEncoder;
+
+  @AfterEach
+  void tearDown() {
+    passwordEncoder.destroy();
+  }
+
+  @Test
+  @DisplayName("Should hash and match on the hashing pool")
+  void shouldDelegateToPool() {
+    // Arrange
+    passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, meterRegistry);
+
+    // Act
+    String hash = passwordEncoder.encode("password123");
+
+    // Assert
+    assertThat(passwordEncoder.matches("password123", hash)).isTrue();
+    assertThat(passwordEncoder.matches("wrong", hash)).isFalse();
+    assertThat(meterRegistry.get("executor.idle").tag("name", "passwordHashing").timer().count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should reject immediately when the pool and queue are full")
+  void shouldRejectWhenSaturated() throws Exception {
+    // Arrange
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blocking = new BlockingPasswordEncoder(started, release);
+    passwordEncoder = new BoundedPasswordEncoder(blocking, 1, 1, meterRegistry);
+    CompletableFuture<String> running =
+        CompletableFuture.supplyAsync(() -> passwordEncoder.encode("a"));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<String> queued =
+        CompletableFuture.supplyAsync(() -> passwordEncoder.encode("b"));
+    while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+      Thread.onSpinWait();
+    }
+
+    // Act & Assert
+    assertThrows(ServiceBusyException.class, () -> passwordEncoder.encode("c"));
+    release.countDown();
+    assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+  }
+
+  private record BlockingPasswordEncoder(CountDownLatch started, CountDownLatch release)
+      implements PasswordEncoder {
+    @Override
+    public String encode(CharSequence rawPassword) {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return rawPassword.toString();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return rawPassword.toString().equals(encodedPassword);
+    }
+  }
+}
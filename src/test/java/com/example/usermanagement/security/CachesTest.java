@@ -0,0 +1,96 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CachesTest {
+  private final AsyncCache<Long, String> cache = Caffeine.newBuilder().buildAsync();
+
+  @Test
+  @DisplayName("Should let concurrent callers share one load, run outside the cache lock")
+  void shouldShareLoad() throws Exception {
+    // Arrange
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    Future<String> first =
+        executor.submit(
+            () ->
+                Caches.get(
+                    cache,
+                    1L,
+                    id -> {
+                      loads.incrementAndGet();
+                      loading.countDown();
+                      await(release);
+                      return "loaded";
+                    }));
+    loading.await();
+
+    // Act
+    Future<String> second = executor.submit(() -> Caches.get(cache, 1L, id -> "other"));
+    // Another key is not held up by the load in progress
+    String unrelated = Caches.get(cache, 2L, id -> "two");
+    release.countDown();
+
+    // Assert
+    assertThat(unrelated).isEqualTo("two");
+    assertThat(first.get()).isEqualTo("loaded");
+    assertThat(second.get()).isEqualTo("loaded");
+    assertThat(loads).hasValue(1);
+    executor.shutdown();
+  }
+
+  @Test
+  @DisplayName("Should not keep a value invalidated while it was loading")
+  void shouldDropInvalidatedLoad() {
+    // Act
+    String loaded =
+        Caches.get(
+            cache,
+            1L,
+            id -> {
+              cache.synchronous().invalidate(id);
+              return "stale";
+            });
+
+    // Assert
+    assertThat(loaded).isEqualTo("stale");
+    assertThat(Caches.get(cache, 1L, id -> "fresh")).isEqualTo("fresh");
+  }
+
+  @Test
+  @DisplayName("Should rethrow a failed load as is and not cache it")
+  void shouldNotCacheFailure() {
+    // Act & Assert
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            Caches.get(
+                cache,
+                1L,
+                id -> {
+                  throw new IllegalStateException("down");
+                }));
+    assertThat(Caches.get(cache, 1L, id -> "recovered")).isEqualTo("recovered");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+class CustomUserDetailsServiceTest {
+  private UserRepository userRepository;
+  private SimpleMeterRegistry meterRegistry;
+  private CustomUserDetailsService userDetailsService;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    userDetailsService =
+        new CustomUserDetailsService(userRepository, meterRegistry, 100, Duration.ofMinutes(10));
+  }
+
+  private User createUser(String email) {
+    Role role = new Role();
+    role.setId(1L);
+    role.setName(Role.RoleName.ROLE_USER);
+    return User.builder().id(1L).email(email).username("testuser").roles(Set.of(role)).build();
+  }
+
+  @Test
+  @DisplayName("Should load a principal once and serve repeats from memory")
+  void shouldCachePrincipal() {
+    // Arrange
+    when(userRepository.findById(1L)).thenReturn(Optional.of(createUser("test@example.com")));
+
+    // Act
+    UserDetails first = userDetailsService.loadUserById(1L);
+    UserDetails second = userDetailsService.loadUserById(1L);
+
+    // Assert
+    assertThat(second).isSameAs(first);
+    verify(userRepository, times(1)).findById(1L);
+    assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should reload a principal after a user change event")
+  void shouldReloadAfterUserChanged() {
+    // Arrange
+    when(userRepository.findById(1L))
+        .thenReturn(Optional.of(createUser("old@example.com")))
+        .thenReturn(Optional.of(createUser("new@example.com")));
+    userDetailsService.loadUserById(1L);
+
+    // Act
+    userDetailsService.onUserChanged(new UserChangedEvent(1L));
+    UserDetails reloaded = userDetailsService.loadUserById(1L);
+
+    // Assert
+    assertThat(((UserPrincipal) reloaded).getEmail()).isEqualTo("new@example.com");
+    verify(userRepository, times(2)).findById(1L);
+  }
+
+  @Test
+  @DisplayName("Should not remember users that do not exist")
+  void shouldNotCacheMissingUser() {
+    // Arrange
+    when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+    // Act & Assert
+    assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserById(2L));
+    assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserById(2L));
+    verify(userRepository, times(2)).findById(2L);
+  }
+}
@@ -0,0 +1,133 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+class HmacJwtVerifierTest {
+
+  private final SecretKey key =
+      Keys.hmacShaKeyFor("testSecretKeyWithMinimum256BitsForHS512SignatureAlgorithm".getBytes());
+  private HmacJwtVerifier verifier;
+
+  @BeforeEach
+  void setUp() {
+    verifier = new HmacJwtVerifier(key);
+  }
+
+  private String token(Map<String, Object> claims, long expiresInMillis) {
+    long now = System.currentTimeMillis();
+    return Jwts.builder()
+        .setSubject("42")
+        .setIssuedAt(new Date(now))
+        .setExpiration(new Date(now + expiresInMillis))
+        .addClaims(claims)
+        .signWith(key)
+        .compact();
+  }
+
+  @Test
+  @DisplayName("Should read subject and expiry from our own tokens")
+  void shouldReadSubjectAndExpiry() {
+    // Arrange
+    String token = token(Map.of(), 3600000);
+
+    // Act
+    VerifiedToken verified = verifier.verify(token);
+
+    // Assert
+    assertThat(verified).isNotNull();
+    assertThat(verified.userId()).isEqualTo(42L);
+    assertThat(verified.expiresAt()).isAfter(Instant.now());
+    assertThat(verified.hasPrincipalClaims()).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should read self-contained principal claims")
+  void shouldReadPrincipalClaims() {
+    // Arrange
+    String token =
+        token(
+            Map.of(
+                "email",
+                "jane@example.com",
+                "roles",
+                List.of("ROLE_USER", "ROLE_ADMIN"),
+                "ver",
+                7,
+                "jti",
+                "0b0e7f0c-4a34-4c6e-9f8e-2b8d5c1e9a10",
+                "extra",
+                Map.of("nested", List.of(1, "two", true))),
+            3600000);
+
+    // Act
+    VerifiedToken verified = verifier.verify(token);
+
+    // Assert
+    assertThat(verified).isNotNull();
+    assertThat(verified.email()).isEqualTo("jane@example.com");
+    assertThat(verified.authorities())
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    assertThat(verified.tokenVersion()).isEqualTo(7);
+    assertThat(verified.jti()).isEqualTo("0b0e7f0c-4a34-4c6e-9f8e-2b8d5c1e9a10");
+  }
+
+  @Test
+  @DisplayName("Should defer tampered tokens to the full parser")
+  void shouldDeferTamperedTokens() {
+    // Arrange
+    String token = token(Map.of(), 3600000);
+    int signatureStart = token.lastIndexOf('.') + 1;
+    char original = token.charAt(signatureStart);
+    String tampered =
+        token.substring(0, signatureStart)
+            + (original == 'A' ? 'B' : 'A')
+            + token.substring(signatureStart + 1);
+
+    // Act & Assert
+    assertThat(verifier.verify(tampered)).isNull();
+  }
+
+  @Test
+  @DisplayName("Should defer expired tokens to the full parser")
+  void shouldDeferExpiredTokens() {
+    // Arrange
+    String token = token(Map.of(), -1000);
+
+    // Act & Assert
+    assertThat(verifier.verify(token)).isNull();
+  }
+
+  @Test
+  @DisplayName("Should defer tokens it does not fully understand")
+  void shouldDeferUnusualTokens() {
+    // Arrange
+    String escaped = token(Map.of("email", "a\"b@example.com"), 3600000);
+    String notBefore = token(Map.of("nbf", System.currentTimeMillis() / 1000), 3600000);
+    String otherHeader =
+        Jwts.builder()
+            .setHeaderParam("kid", "k1")
+            .setSubject("42")
+            .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+            .signWith(key)
+            .compact();
+
+    // Act & Assert
+    assertThat(verifier.verify(escaped)).isNull();
+    assertThat(verifier.verify(notBefore)).isNull();
+    assertThat(verifier.verify(otherHeader)).isNull();
+    assertThat(verifier.verify("invalidToken")).isNull();
+  }
+}
@@ -6,11 +6,17 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 class JwtTokenProviderTest {
 
@@ -40,21 +46,56 @@ class JwtTokenProviderTest {
     assertThat(token).isNotNull();
     assertTrue(tokenProvider.validateToken(token));
     assertThat(tokenProvider.getUserIdFromToken(token)).isEqualTo(1L);
+    assertThat(tokenProvider.verifyToken(token))
+        .hasValueSatisfying(
+            verified -> {
+              assertThat(verified.jti()).isNotBlank();
+              assertThat(verified.tokenVersion()).isZero();
+            });
+    assertThat(tokenProvider.verifyToken(tokenProvider.generateAccessToken(authentication)))
+        .hasValueSatisfying(verified -> assertThat(verified.jti()).isNotEqualTo(jti(token)));
+  }
+
+  private String jti(String token) {
+    return tokenProvider.verifyToken(token).orElseThrow().jti();
   }
 
   @Test
-  @DisplayName("Should generate valid refresh token")
+  @DisplayName("Should sign refresh tokens with a key that access-token checks reject")
   void shouldGenerateValidRefreshToken() {
     // Arrange
-    Long userId = 1L;
+    UUID familyId = UUID.randomUUID();
+    Instant expiresAt = Instant.now().plusSeconds(60).truncatedTo(ChronoUnit.SECONDS);
 
     // Act
-    String token = tokenProvider.generateRefreshToken(userId);
+    String token = tokenProvider.generateRefreshToken(1L, familyId, expiresAt);
 
     // Assert
-    assertThat(token).isNotNull();
-    assertTrue(tokenProvider.validateToken(token));
-    assertThat(tokenProvider.getUserIdFromToken(token)).isEqualTo(userId);
+    assertFalse(tokenProvider.validateToken(token));
+    assertThat(tokenProvider.parseRefreshToken(token))
+        .hasValueSatisfying(
+            claims -> {
+              assertThat(claims.userId()).isEqualTo(1L);
+              assertThat(claims.familyId()).isEqualTo(familyId);
+              assertThat(claims.expiresAt()).isEqualTo(expiresAt);
+              assertThat(claims.jti()).isNotBlank();
+            });
+  }
+
+  @Test
+  @DisplayName("Should not accept an access token as a refresh token")
+  void shouldRejectAccessTokenAsRefreshToken() {
+    // Arrange
+    Authentication authentication = mock(Authentication.class);
+    when(authentication.getPrincipal())
+        .thenReturn(new UserPrincipal(1L, "test@example.com", "password", List.of(), null));
+
+    // Act
+    String token = tokenProvider.generateAccessToken(authentication);
+
+    // Assert
+    assertThat(tokenProvider.parseRefreshToken(token)).isEmpty();
+    assertThat(tokenProvider.parseRefreshToken("not-a-jwt")).isEmpty();
   }
 
   @Test
@@ -98,4 +139,52 @@ class JwtTokenProviderTest {
     // Assert
     assertThat(extractedUserId).isEqualTo(userId);
   }
+
+  @Test
+  @DisplayName("Should carry principal claims in self-contained mode")
+  void shouldCarryPrincipalClaimsInSelfContainedMode() {
+    // Arrange
+    tokenProvider =
+        new JwtTokenProvider(jwtSecret, accessTokenExpiration, refreshTokenExpiration, true);
+    Authentication authentication = mock(Authentication.class);
+    UserPrincipal userPrincipal =
+        new UserPrincipal(
+            1L,
+            "test@example.com",
+            "password",
+            List.of(new SimpleGrantedAuthority("ROLE_USER")),
+            null,
+            3);
+    when(authentication.getPrincipal()).thenReturn(userPrincipal);
+    String token = tokenProvider.generateAccessToken(authentication);
+
+    // Act
+    VerifiedToken verified = tokenProvider.verifyToken(token).orElseThrow();
+
+    // Assert
+    assertTrue(verified.hasPrincipalClaims());
+    assertThat(verified.email()).isEqualTo("test@example.com");
+    assertThat(verified.authorities())
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_USER");
+    assertThat(verified.tokenVersion()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should omit principal claims by default")
+  void shouldOmitPrincipalClaimsByDefault() {
+    // Arrange
+    Authentication authentication = mock(Authentication.class);
+    UserPrincipal userPrincipal =
+        new UserPrincipal(1L, "test@example.com", "password", Collections.emptyList(), null);
+    when(authentication.getPrincipal()).thenReturn(userPrincipal);
+    String token = tokenProvider.generateAccessToken(authentication);
+
+    // Act
+    VerifiedToken verified = tokenProvider.verifyToken(token).orElseThrow();
+
+    // Assert
+    assertFalse(verified.hasPrincipalClaims());
+    assertThat(verified.userId()).isEqualTo(1L);
+  }
 }
@@ -0,0 +1,104 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.usermanagement.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LoginRateLimiterTest {
+  private final AtomicLong clock = new AtomicLong();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private LoginRateLimiter loginRateLimiter;
+
+  @BeforeEach
+  void setUp() {
+    loginRateLimiter =
+        new LoginRateLimiter(
+            meterRegistry,
+            true,
+            new LoginRateLimiter.Limit(10, Duration.ofMinutes(1)),
+            new LoginRateLimiter.Limit(3, Duration.ofMinutes(1)),
+            1000,
+            Duration.ofMinutes(10),
+            clock::get);
+  }
+
+  @Test
+  @DisplayName("Should allow a burst up to capacity, then reject with a retry delay")
+  void shouldRejectAfterBurst() {
+    // Arrange
+    for (int i = 0; i < 3; i++) {
+      loginRateLimiter.acquire("10.0.0.1", "test@example.com");
+    }
+
+    // Act
+    TooManyRequestsException ex =
+        assertThrows(
+            TooManyRequestsException.class,
+            () -> loginRateLimiter.acquire("10.0.0.1", "Test@Example.com "));
+
+    // Assert
+    assertThat(ex.getRetryAfterSeconds()).isEqualTo(20);
+    assertThat(meterRegistry.get("auth.rate_limit.rejected").tag("key", "email").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should refill attempts evenly over the refill period")
+  void shouldRefillOverTime() {
+    // Arrange
+    for (int i = 0; i < 3; i++) {
+      loginRateLimiter.acquire("10.0.0.1", "test@example.com");
+    }
+
+    // Act
+    clock.addAndGet(Duration.ofSeconds(20).toNanos());
+
+    // Assert
+    assertDoesNotThrow(() -> loginRateLimiter.acquire("10.0.0.1", "test@example.com"));
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> loginRateLimiter.acquire("10.0.0.1", "test@example.com"));
+  }
+
+  @Test
+  @DisplayName("Should round the retry delay up to whole seconds")
+  void shouldRoundRetryDelayUp() {
+    // Arrange
+    for (int i = 0; i < 3; i++) {
+      loginRateLimiter.acquire("10.0.0.1", "test@example.com");
+    }
+    clock.addAndGet(Duration.ofMillis(18_100).toNanos());
+
+    // Act
+    TooManyRequestsException ex =
+        assertThrows(
+            TooManyRequestsException.class,
+            () -> loginRateLimiter.acquire("10.0.0.1", "test@example.com"));
+
+    // Assert
+    assertThat(ex.getRetryAfterSeconds()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should limit an IP across many accounts")
+  void shouldLimitIpAcrossAccounts() {
+    // Arrange
+    for (int i = 0; i < 10; i++) {
+      loginRateLimiter.acquire("10.0.0.1", "user" + i + "@example.com");
+    }
+
+    // Act & Assert
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> loginRateLimiter.acquire("10.0.0.1", "other@example.com"));
+    assertDoesNotThrow(() -> loginRateLimiter.acquire("10.0.0.2", "other@example.com"));
+  }
+}
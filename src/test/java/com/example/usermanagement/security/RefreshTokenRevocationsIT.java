@@ -0,0 +1,82 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.usermanagement.repository.RefreshTokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@ActiveProfiles("it")
+@TestPropertySource(
+    properties = {
+      "app.refresh-tokens.stateless=true",
+      "app.refresh-tokens.revocations.poll-interval=3600000"
+    })
+class RefreshTokenRevocationsIT {
+  @Autowired private RefreshTokenRevocationRepository revocationRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private DataSource dataSource;
+
+  /** Another node, reading the same table. */
+  private RefreshTokenRevocations otherNode() {
+    RefreshTokenRevocations node =
+        new RefreshTokenRevocations(
+            revocationRepository,
+            jdbcTemplate,
+            new SimpleMeterRegistry(),
+            true,
+            Duration.ofHours(1).toMillis(),
+            1000,
+            0.01);
+    node.load();
+    return node;
+  }
+
+  @Test
+  @DisplayName("Should pick up a revocation that commits long after it was stamped")
+  void shouldPollLateCommits() throws Exception {
+    // Arrange
+    RefreshTokenRevocations node = otherNode();
+    UUID familyId = UUID.randomUUID();
+    Instant revokedAt = Instant.now().minus(Duration.ofMinutes(10));
+
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (PreparedStatement insert =
+          connection.prepareStatement(
+              "INSERT INTO refresh_token_revocations (family_id, revoked_at, expires_at)"
+                  + " VALUES (?, ?, ?)")) {
+        insert.setObject(1, familyId);
+        insert.setTimestamp(2, Timestamp.from(revokedAt));
+        insert.setTimestamp(3, Timestamp.from(Instant.now().plus(Duration.ofHours(1))));
+        insert.executeUpdate();
+      }
+
+      // Act: one poll while the revocation is still uncommitted, the next after it commits
+      node.poll();
+      boolean revokedBeforeCommit = node.isRevoked(familyId);
+      connection.commit();
+      node.poll();
+
+      // Assert
+      assertThat(revokedBeforeCommit).isFalse();
+      assertThat(node.isRevoked(familyId)).isTrue();
+    } finally {
+      jdbcTemplate.update("DELETE FROM refresh_token_revocations WHERE family_id = ?", familyId);
+    }
+  }
+}
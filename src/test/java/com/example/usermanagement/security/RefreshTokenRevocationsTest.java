@@ -0,0 +1,145 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.repository.RefreshTokenRevocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenRevocationsTest {
+  private static final long REFRESH_TOKEN_EXPIRATION = 3600000;
+
+  @Mock private RefreshTokenRevocationRepository revocationRepository;
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  private RefreshTokenRevocations revocations(boolean enabled) {
+    return new RefreshTokenRevocations(
+        revocationRepository,
+        jdbcTemplate,
+        new SimpleMeterRegistry(),
+        enabled,
+        REFRESH_TOKEN_EXPIRATION,
+        1000,
+        0.01);
+  }
+
+  @Test
+  @DisplayName("Should persist a revocation and apply it on this node at once")
+  void shouldRevokeFamily() {
+    // Arrange
+    RefreshTokenRevocations revocations = revocations(true);
+    UUID familyId = UUID.randomUUID();
+
+    // Act
+    revocations.revoke(familyId);
+
+    // Assert
+    assertThat(revocations.isRevoked(familyId)).isTrue();
+    assertThat(revocations.isRevoked(UUID.randomUUID())).isFalse();
+    verify(revocationRepository).insert(eq(familyId), any(Instant.class), any(Instant.class));
+  }
+
+  /** Answers the revocation query with {@code families}, as of transaction {@code horizon}. */
+  private static Answer<Object> rows(long horizon, Map<UUID, Instant> families) {
+    return invocation -> {
+      List<Map.Entry<UUID, Instant>> entries = List.copyOf(families.entrySet());
+      ResultSet rs = mock(ResultSet.class);
+      int[] row = {-1};
+      when(rs.next()).thenAnswer(next -> ++row[0] < entries.size());
+      when(rs.getString("horizon")).thenReturn(Long.toString(horizon));
+      when(rs.getObject("family_id", UUID.class)).thenAnswer(get -> entries.get(row[0]).getKey());
+      when(rs.getTimestamp("expires_at"))
+          .thenAnswer(get -> Timestamp.from(entries.get(row[0]).getValue()));
+      return invocation.<ResultSetExtractor<Object>>getArgument(1).extractData(rs);
+    };
+  }
+
+  private void stubRevocations(String since, Answer<Object> answer) {
+    when(jdbcTemplate.query(
+            anyString(), ArgumentMatchers.<ResultSetExtractor<Object>>any(), eq(since), any()))
+        .thenAnswer(answer);
+  }
+
+  @Test
+  @DisplayName("Should reload persisted revocations and pick up those of other nodes")
+  void shouldLoadAndPoll() {
+    // Arrange: each read starts from the oldest transaction the previous one could not see
+    RefreshTokenRevocations revocations = revocations(true);
+    UUID loaded = UUID.randomUUID();
+    UUID polled = UUID.randomUUID();
+    Instant expiresAt = Instant.now().plusSeconds(60);
+    stubRevocations("0", rows(100, Map.of(loaded, expiresAt)));
+    stubRevocations("100", rows(120, Map.of(polled, expiresAt)));
+
+    // Act
+    revocations.load();
+    revocations.poll();
+
+    // Assert
+    assertThat(revocations.isRevoked(loaded)).isTrue();
+    assertThat(revocations.isRevoked(polled)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should forget revocations once the family's tokens have expired")
+  void shouldPurgeExpired() {
+    // Arrange
+    RefreshTokenRevocations revocations = revocations(true);
+    UUID expired = UUID.randomUUID();
+    UUID current = UUID.randomUUID();
+    stubRevocations(
+        "0",
+        rows(
+            100,
+            Map.of(
+                expired, Instant.now().minusSeconds(1), current, Instant.now().plusSeconds(60))));
+    revocations.load();
+
+    // Act
+    revocations.purge();
+
+    // Assert
+    assertThat(revocations.isRevoked(expired)).isFalse();
+    assertThat(revocations.isRevoked(current)).isTrue();
+    verify(revocationRepository).deleteExpired(any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Should do nothing unless refresh tokens are stateless")
+  void shouldIgnoreWhenDisabled() {
+    // Arrange
+    RefreshTokenRevocations revocations = revocations(false);
+    UUID familyId = UUID.randomUUID();
+
+    // Act
+    revocations.load();
+    revocations.revoke(familyId);
+    revocations.poll();
+
+    // Assert
+    assertThat(revocations.isRevoked(familyId)).isFalse();
+    verifyNoInteractions(revocationRepository);
+  }
+}
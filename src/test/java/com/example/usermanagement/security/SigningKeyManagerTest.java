@@ -0,0 +1,189 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+import com.example.usermanagement.entity.SigningKey;
+import com.example.usermanagement.repository.SigningKeyRepository;
+import io.jsonwebtoken.Jwts;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class SigningKeyManagerTest {
+
+  private final String jwtSecret = "testSecretKeyWithMinimum256BitsForHS512SignatureAlgorithm";
+  private final long accessTokenExpiration = 3600000; // 1 hour
+  private final long rotationInterval = Duration.ofDays(7).toMillis();
+  private final long publishAhead = 3600000; // 1 hour
+
+  private final List<SigningKey> stored = new ArrayList<>();
+  private SigningKeyManager signingKeyManager;
+
+  @BeforeEach
+  void setUp() {
+    SigningKeyRepository repository = mock(SigningKeyRepository.class);
+    lenient()
+        .when(repository.findAllByOrderByCreatedAtDesc())
+        .thenAnswer(
+            i ->
+                stored.stream()
+                    .sorted(Comparator.comparing(SigningKey::getCreatedAt).reversed())
+                    .toList());
+    lenient().when(repository.tryAdvisoryXactLock(anyLong())).thenReturn(true);
+    lenient()
+        .when(repository.save(any(SigningKey.class)))
+        .thenAnswer(
+            i -> {
+              stored.add(i.getArgument(0));
+              return i.getArgument(0);
+            });
+    lenient()
+        .doAnswer(
+            i -> {
+              stored.removeAll((Collection<?>) i.getArgument(0));
+              return null;
+            })
+        .when(repository)
+        .deleteAll(any());
+
+    signingKeyManager =
+        new SigningKeyManager(
+            repository,
+            mock(PlatformTransactionManager.class),
+            jwtSecret,
+            accessTokenExpiration,
+            rotationInterval,
+            publishAhead);
+  }
+
+  private String accessToken(JwtTokenProvider tokenProvider) {
+    UserPrincipal principal = new UserPrincipal(1L, "test@example.com", null, List.of(), null);
+    return tokenProvider.generateAccessToken(
+        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+  }
+
+  private void age(SigningKey key, Duration age) {
+    key.setCreatedAt(Instant.now().minus(age));
+  }
+
+  @Test
+  @DisplayName("Should create a key on first refresh and sign with it")
+  void shouldCreateKeyOnFirstRefresh() {
+    // Arrange
+    signingKeyManager.refresh();
+    JwtTokenProvider tokenProvider =
+        new JwtTokenProvider(
+            jwtSecret, accessTokenExpiration, 86400000, false, Optional.of(signingKeyManager));
+
+    // Act
+    String token = accessToken(tokenProvider);
+
+    // Assert
+    assertThat(stored).hasSize(1);
+    String kid =
+        Jwts.parserBuilder()
+            .build()
+            .parse(token.substring(0, token.lastIndexOf('.') + 1))
+            .getHeader()
+            .get("kid")
+            .toString();
+    assertThat(kid).isEqualTo(stored.get(0).getKid());
+    assertThat(tokenProvider.verifyToken(token)).map(VerifiedToken::userId).contains(1L);
+    assertThat(signingKeyManager.jwks())
+        .singleElement()
+        .satisfies(jwk -> assertThat(jwk).containsEntry("kid", kid).containsEntry("crv", "P-256"));
+  }
+
+  @Test
+  @DisplayName("Should publish a rotated key before signing with it")
+  void shouldPublishRotatedKeyAhead() {
+    // Arrange
+    signingKeyManager.refresh();
+    SigningKey original = stored.get(0);
+    age(original, Duration.ofDays(8));
+
+    // Act
+    signingKeyManager.refresh();
+
+    // Assert
+    assertThat(stored).hasSize(2);
+    assertThat(signingKeyManager.signingKeyId()).isEqualTo(original.getKid());
+    assertThat(signingKeyManager.jwks()).hasSize(2);
+
+    // Act: once the new key has been published long enough
+    stored.stream().filter(k -> k != original).forEach(k -> age(k, Duration.ofMinutes(90)));
+    signingKeyManager.refresh();
+
+    // Assert
+    assertThat(signingKeyManager.signingKeyId()).isNotEqualTo(original.getKid());
+    assertThat(signingKeyManager.verificationKey(original.getKid())).isNotNull();
+  }
+
+  @Test
+  @DisplayName("Should drop a replaced key once its last token has expired")
+  void shouldDropRetiredKeys() {
+    // Arrange
+    signingKeyManager.refresh();
+    SigningKey oldest = stored.get(0);
+    age(oldest, Duration.ofDays(20));
+    signingKeyManager.refresh();
+    SigningKey middle = stored.stream().filter(k -> k != oldest).findFirst().orElseThrow();
+    age(middle, Duration.ofDays(10));
+
+    // Act
+    signingKeyManager.refresh();
+
+    // Assert
+    assertThat(stored).doesNotContain(oldest).contains(middle).hasSize(2);
+    assertThat(signingKeyManager.verificationKey(oldest.getKid())).isNull();
+    assertThat(signingKeyManager.signingKeyId()).isEqualTo(middle.getKid());
+  }
+
+  @Test
+  @DisplayName("Should reject tokens with an unknown key id")
+  void shouldRejectUnknownKeyId() {
+    // Arrange
+    signingKeyManager.refresh();
+    JwtTokenProvider tokenProvider =
+        new JwtTokenProvider(
+            jwtSecret, accessTokenExpiration, 86400000, false, Optional.of(signingKeyManager));
+    String token = accessToken(tokenProvider);
+    stored.clear();
+    signingKeyManager.refresh();
+
+    // Act & Assert
+    assertThat(tokenProvider.verifyToken(token)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should accept secret-signed tokens only until they expire after the switch")
+  void shouldStopAcceptingHmacTokensAfterSwitch() {
+    // Arrange
+    String hmacToken =
+        accessToken(new JwtTokenProvider(jwtSecret, accessTokenExpiration, 86400000));
+    signingKeyManager.refresh();
+    JwtTokenProvider tokenProvider =
+        new JwtTokenProvider(
+            jwtSecret, accessTokenExpiration, 86400000, false, Optional.of(signingKeyManager));
+
+    // Act & Assert
+    assertThat(tokenProvider.verifyToken(hmacToken)).isPresent();
+    age(stored.get(0), Duration.ofMillis(publishAhead + accessTokenExpiration + 1000));
+    signingKeyManager.refresh();
+    assertThat(tokenProvider.verifyToken(hmacToken)).isEmpty();
+    assertThat(tokenProvider.validateToken(hmacToken)).isFalse();
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.usermanagement.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+
+class VerifiedTokenCacheTest {
+
+  private final String jwtSecret = "testSecretKeyWithMinimum256BitsForHS512SignatureAlgorithm";
+  private JwtTokenProvider tokenProvider;
+
+  @BeforeEach
+  void setUp() {
+    tokenProvider = spy(new JwtTokenProvider(jwtSecret, 3600000, 86400000));
+  }
+
+  private String accessToken(long userId) {
+    Authentication authentication = mock(Authentication.class);
+    when(authentication.getPrincipal())
+        .thenReturn(
+            new UserPrincipal(
+                userId, "test@example.com", "password", Collections.emptyList(), null));
+    return tokenProvider.generateAccessToken(authentication);
+  }
+
+  private VerifiedTokenCache cache(boolean enabled) {
+    return new VerifiedTokenCache(tokenProvider, new SimpleMeterRegistry(), enabled, 100);
+  }
+
+  @Test
+  @DisplayName("Should verify a repeated token only once")
+  void shouldVerifyRepeatedTokenOnce() {
+    // Arrange
+    VerifiedTokenCache cache = cache(true);
+    String token = accessToken(7L);
+
+    // Act
+    Optional<VerifiedToken> first = cache.verify(token);
+    Optional<VerifiedToken> second = cache.verify(token);
+
+    // Assert
+    assertThat(first).map(VerifiedToken::userId).contains(7L);
+    assertThat(second).isEqualTo(first);
+    verify(tokenProvider, times(1)).verifyToken(token);
+    assertThat(cache.missCount()).isEqualTo(1);
+    assertThat(cache.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should not cache invalid tokens")
+  void shouldNotCacheInvalidTokens() {
+    // Arrange
+    VerifiedTokenCache cache = cache(true);
+    String token = accessToken(7L);
+    int payloadStart = token.indexOf('.') + 1;
+    char original = token.charAt(payloadStart);
+    String tampered =
+        token.substring(0, payloadStart)
+            + (original == 'e' ? 'f' : 'e')
+            + token.substring(payloadStart + 1);
+
+    // Act & Assert
+    assertThat(cache.verify(tampered)).isEmpty();
+    assertThat(cache.verify(tampered)).isEmpty();
+    verify(tokenProvider, times(2)).verifyToken(tampered);
+  }
+
+  @Test
+  @DisplayName("Should not serve a token after it expires")
+  void shouldNotServeExpiredToken() {
+    // Arrange
+    tokenProvider = spy(new JwtTokenProvider(jwtSecret, -1000, 86400000));
+    VerifiedTokenCache cache = cache(true);
+    String expired = accessToken(7L);
+
+    // Act & Assert
+    assertThat(cache.verify(expired)).isEmpty();
+    assertThat(cache.hitCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should verify every time when disabled")
+  void shouldVerifyEveryTimeWhenDisabled() {
+    // Arrange
+    VerifiedTokenCache cache = cache(false);
+    String token = accessToken(7L);
+
+    // Act
+    cache.verify(token);
+    cache.verify(token);
+
+    // Assert
+    verify(tokenProvider, times(2)).verifyToken(token);
+    assertThat(cache.hitCount()).isZero();
+  }
+}
@@ -0,0 +1,212 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.usermanagement.dto.SignupRequest;
+import com.example.usermanagement.dto.TokenRefreshResponse;
+import com.example.usermanagement.exception.TokenRefreshException;
+import com.example.usermanagement.security.TokenDigest;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("it")
+class AuthServiceRefreshTokenIT {
+  private static final int PARALLEL_LOGINS = 32;
+  private static final int LOGINS_PER_THREAD = 10;
+
+  @Autowired private AuthService authService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Value("${app.refresh-tokens.max-sessions-per-user}")
+  private int maxSessionsPerUser;
+
+  private Statistics statistics;
+  private Long userId;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+        "DELETE FROM refresh_tokens WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'it_refresh%')");
+    jdbcTemplate.update(
+        "DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'it_refresh%')");
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_refresh%'");
+
+    SignupRequest request = new SignupRequest();
+    request.setUsername("it_refresh");
+    request.setEmail("it_refresh@example.com");
+    request.setPassword("password123");
+    authService.signup(request);
+    userId =
+        jdbcTemplate.queryForObject(
+            "SELECT id FROM users WHERE username = 'it_refresh'", Long.class);
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  private List<String> tokenRows() {
+    return jdbcTemplate.queryForList(
+        "SELECT encode(token_hash, 'hex') FROM refresh_tokens WHERE user_id = ?",
+        String.class,
+        userId);
+  }
+
+  private static String hex(String token) {
+    return HexFormat.of().formatHex(TokenDigest.sha256(token));
+  }
+
+  private String login(String deviceName) {
+    return authService.createRefreshToken(userId, deviceName);
+  }
+
+  @Test
+  @DisplayName("Should start a session with a lock, an insert and an eviction, without a user load")
+  void shouldIssueWithoutUserLoad() {
+    // Arrange
+    login("Laptop");
+    statistics.clear();
+
+    // Act
+    String token = login("Phone");
+
+    // Assert: plus a sequence call whenever the pooled id block runs out
+    assertThat(statistics.getPrepareStatementCount()).isBetween(3L, 4L);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+    assertThat(tokenRows()).hasSize(2).contains(hex(token));
+  }
+
+  @Test
+  @DisplayName("Should find a token by its digest, matching the digest the migration computes")
+  void shouldRefreshByDigest() {
+    // Arrange
+    String token = login("Laptop");
+
+    // Act
+    TokenRefreshResponse response = authService.refreshToken(token);
+
+    // Assert
+    assertThat(response.getAccessToken()).isNotBlank();
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT encode(sha256(convert_to(?, 'UTF8')), 'hex')", String.class, token))
+        .isEqualTo(hex(token));
+  }
+
+  @Test
+  @DisplayName("Should rotate tokens and revoke the family when a rotated-out token is reused")
+  void shouldRevokeFamilyOnReuse() {
+    // Arrange
+    String other = login("Laptop");
+    String first = login("Phone");
+    String second = authService.refreshToken(first).getRefreshToken();
+
+    // Act
+    assertThrows(TokenRefreshException.class, () -> authService.refreshToken(first));
+
+    // Assert
+    assertThrows(TokenRefreshException.class, () -> authService.refreshToken(second));
+    assertThat(tokenRows()).containsExactly(hex(other));
+  }
+
+  @Test
+  @DisplayName("Should treat two concurrent refreshes with one token as reuse")
+  void shouldRevokeFamilyOnConcurrentRefresh() throws Exception {
+    // Arrange
+    String token = login("Phone");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<TokenRefreshResponse>> results = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                return authService.refreshToken(token);
+              }));
+    }
+
+    // Act
+    start.countDown();
+    int failed = 0;
+    for (Future<TokenRefreshResponse> result : results) {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(TokenRefreshException.class);
+        failed++;
+      }
+    }
+    executor.shutdown();
+
+    // Assert
+    assertThat(failed).isPositive();
+    assertThat(tokenRows()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should evict the least recently used session beyond the per-user cap")
+  void shouldEvictLeastRecentlyUsedSession() {
+    // Arrange
+    String oldest = login("Device 0");
+    String secondOldest = login("Device 1");
+    for (int i = 2; i < maxSessionsPerUser; i++) {
+      login("Device " + i);
+    }
+    String refreshed = authService.refreshToken(oldest).getRefreshToken();
+
+    // Act
+    login("New device");
+
+    // Assert
+    assertThat(tokenRows()).hasSize(maxSessionsPerUser).contains(hex(refreshed));
+    assertThat(tokenRows()).doesNotContain(hex(secondOldest));
+  }
+
+  @Test
+  @DisplayName("Should hold the session cap under many concurrent logins for one user")
+  void shouldSurviveConcurrentLogins() throws Exception {
+    // Arrange
+    ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_LOGINS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < PARALLEL_LOGINS; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int j = 0; j < LOGINS_PER_THREAD; j++) {
+                  login("Device");
+                }
+                return null;
+              }));
+    }
+
+    // Act
+    start.countDown();
+    for (Future<?> result : results) {
+      result.get(); // Rethrows any deadlock or constraint violation
+    }
+    executor.shutdown();
+
+    // Assert
+    assertThat(tokenRows()).hasSize(maxSessionsPerUser);
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.usermanagement.dto.SignupRequest;
+import com.example.usermanagement.exception.EmailAlreadyExistsException;
+import com.example.usermanagement.exception.UsernameAlreadyExistsException;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("it")
+class AuthServiceSignupIT {
+  private static final int PARALLEL_SIGNUPS = 16;
+
+  @Autowired private AuthService authService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+        "DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'it_signup%')");
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_signup%'");
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  private SignupRequest request(String username, String email) {
+    SignupRequest request = new SignupRequest();
+    request.setUsername(username);
+    request.setEmail(email);
+    request.setPassword("password123");
+    return request;
+  }
+
+  private void signup(String username, String email) {
+    authService.signup(request(username, email));
+  }
+
+  @Test
+  @DisplayName("Should register a user with the user and role inserts only")
+  void shouldSignupWithInsertsOnly() {
+    // Arrange
+    statistics.clear();
+
+    // Act
+    signup("it_signup_single", "it_signup_single@example.com");
+
+    // Assert: plus a sequence call whenever the pooled id block runs out
+    assertThat(statistics.getPrepareStatementCount()).isBetween(2L, 3L);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+    assertThat(statistics.getQueryExecutionCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should let exactly one of many parallel duplicate signups win")
+  void shouldAcceptOneOfParallelDuplicates() throws Exception {
+    // Arrange
+    ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_SIGNUPS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < PARALLEL_SIGNUPS; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                signup("it_signup_dup", "it_signup_dup@example.com");
+                return null;
+              }));
+    }
+    statistics.clear();
+
+    // Act
+    start.countDown();
+    int succeeded = 0;
+    int duplicates = 0;
+    for (Future<?> result : results) {
+      try {
+        result.get();
+        succeeded++;
+      } catch (ExecutionException e) {
+        assertThat(e.getCause())
+            .isInstanceOfAny(
+                UsernameAlreadyExistsException.class, EmailAlreadyExistsException.class);
+        duplicates++;
+      }
+    }
+    executor.shutdown();
+
+    // Assert
+    Integer rows =
+        jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM users WHERE username LIKE 'it_signup_dup%'", Integer.class);
+    assertThat(succeeded).isEqualTo(1);
+    assertThat(duplicates).isEqualTo(PARALLEL_SIGNUPS - 1);
+    assertThat(rows).isEqualTo(1);
+    // A winner costs the user and role inserts; a loser stops at the rejected user insert.
+    // Each loser still burns an id, so the pooled block may be refilled once along the way.
+    assertThat(statistics.getPrepareStatementCount())
+        .isBetween(2L * succeeded + duplicates, 2L * succeeded + duplicates + 1);
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.usermanagement.dto.SignupRequest;
+import com.example.usermanagement.exception.TokenRefreshException;
+import com.example.usermanagement.security.UserPrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@ActiveProfiles("it")
+@TestPropertySource(properties = "app.refresh-tokens.stateless=true")
+class AuthServiceStatelessRefreshIT {
+  @Autowired private AuthService authService;
+  @Autowired private SessionService sessionService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private Long userId;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+        "DELETE FROM refresh_tokens WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'it_stateless%')");
+    jdbcTemplate.update(
+        "DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'it_stateless%')");
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_stateless%'");
+
+    SignupRequest request = new SignupRequest();
+    request.setUsername("it_stateless");
+    request.setEmail("it_stateless@example.com");
+    request.setPassword("password123");
+    authService.signup(request);
+    userId =
+        jdbcTemplate.queryForObject(
+            "SELECT id FROM users WHERE username = 'it_stateless'", Long.class);
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  private UUID familyOf(String token) {
+    return jdbcTemplate.queryForObject(
+        "SELECT family_id FROM refresh_tokens WHERE token_hash = sha256(convert_to(?, 'UTF8'))",
+        UUID.class,
+        token);
+  }
+
+  @Test
+  @DisplayName("Should refresh a signed token without a single statement")
+  void shouldRefreshWithoutStatements() {
+    // Arrange
+    String token = authService.createRefreshToken(userId, "Laptop");
+    authService.refreshToken(token); // Loads the principal into its cache
+    statistics.clear();
+
+    // Act
+    String accessToken = authService.refreshToken(token).getAccessToken();
+
+    // Assert
+    assertThat(accessToken).isNotBlank();
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should reject a revoked session at once and persist the revocation")
+  void shouldRejectRevokedSession() {
+    // Arrange
+    String token = authService.createRefreshToken(userId, "Laptop");
+    UUID familyId = familyOf(token);
+    UserPrincipal principal =
+        new UserPrincipal(userId, "it_stateless@example.com", null, Collections.emptyList(), null);
+
+    // Act
+    sessionService.revokeSession(principal, familyId);
+
+    // Assert
+    assertThrows(TokenRefreshException.class, () -> authService.refreshToken(token));
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM refresh_token_revocations WHERE family_id = ?",
+                Integer.class,
+                familyId))
+        .isOne();
+  }
+
+  @Test
+  @DisplayName("Should reject every session of a user that logged out")
+  void shouldRejectAfterLogout() {
+    // Arrange
+    String laptop = authService.createRefreshToken(userId, "Laptop");
+    String phone = authService.createRefreshToken(userId, "Phone");
+
+    // Act
+    authService.logout(userId, null);
+
+    // Assert
+    assertThrows(TokenRefreshException.class, () -> authService.refreshToken(laptop));
+    assertThrows(TokenRefreshException.class, () -> authService.refreshToken(phone));
+    assertThat(authService.refreshToken(authService.createRefreshToken(userId, "Laptop")))
+        .isNotNull();
+  }
+}
@@ -2,33 +2,47 @@ package com.example.usermanagement.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import com.example.usermanagement.dto.*;
 import com.example.usermanagement.entity.RefreshToken;
 import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.EmailAlreadyExistsException;
 import com.example.usermanagement.exception.TokenRefreshException;
 import com.example.usermanagement.exception.UsernameAlreadyExistsException;
 import com.example.usermanagement.repository.RefreshTokenRepository;
-import com.example.usermanagement.repository.RoleRepository;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.AccessTokenRevocations;
+import com.example.usermanagement.security.CustomUserDetailsService;
 import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.RefreshTokenClaims;
+import com.example.usermanagement.security.RefreshTokenRevocations;
+import com.example.usermanagement.security.TokenDigest;
+import com.example.usermanagement.security.TokenVersionRegistry;
 import com.example.usermanagement.security.UserPrincipal;
+import com.example.usermanagement.security.VerifiedToken;
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -38,10 +52,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 class AuthServiceTest {
   @Mock private AuthenticationManager authenticationManager;
   @Mock private UserRepository userRepository;
-  @Mock private RoleRepository roleRepository;
+  @Mock private RoleRegistry roleRegistry;
   @Mock private PasswordEncoder passwordEncoder;
   @Mock private JwtTokenProvider tokenProvider;
   @Mock private RefreshTokenRepository refreshTokenRepository;
+  @Mock private TokenVersionRegistry tokenVersionRegistry;
+  @Mock private PasswordRehashService passwordRehashService;
+  @Mock private CustomUserDetailsService userDetailsService;
+  @Mock private RefreshTokenRotator refreshTokenRotator;
+  @Mock private RefreshTokenRevocations refreshTokenRevocations;
+  @Mock private AccessTokenRevocations accessTokenRevocations;
 
   @InjectMocks private AuthService authService;
 
@@ -72,11 +92,9 @@ class AuthServiceTest {
     @DisplayName("Should successfully register a new user")
     void shouldRegisterNewUser() {
       // Arrange
-      when(userRepository.existsByUsername(anyString())).thenReturn(false);
-      when(userRepository.existsByEmail(anyString())).thenReturn(false);
-      when(roleRepository.findByName(Role.RoleName.ROLE_USER)).thenReturn(Optional.of(userRole));
+      when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
       when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
-      when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+      when(userRepository.saveAndFlush(any(User.class))).thenAnswer(i -> i.getArgument(0));
 
       // Act
       SignupResponse response = authService.signup(validSignupRequest);
@@ -84,19 +102,40 @@ class AuthServiceTest {
       // Assert
       assertThat(response.isSuccess()).isTrue();
       assertThat(response.getMessage()).isEqualTo("User registered successfully");
-      verify(userRepository).save(any(User.class));
+      verify(userRepository).saveAndFlush(any(User.class));
+      verify(userRepository, never()).existsByUsername(anyString());
+      verify(userRepository, never()).existsByEmail(anyString());
     }
 
     @Test
     @DisplayName("Should throw exception when username already exists")
     void shouldThrowExceptionWhenUsernameExists() {
       // Arrange
-      when(userRepository.existsByUsername(anyString())).thenReturn(true);
+      when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
+      when(userRepository.saveAndFlush(any(User.class)))
+          .thenThrow(uniqueViolation("users_username_key"));
 
       // Act & Assert
       org.junit.jupiter.api.Assertions.assertThrows(
           UsernameAlreadyExistsException.class, () -> authService.signup(validSignupRequest));
-      verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should throw exception when email already exists")
+    void shouldThrowExceptionWhenEmailExists() {
+      // Arrange
+      when(roleRegistry.get(Role.RoleName.ROLE_USER)).thenReturn(userRole);
+      when(userRepository.saveAndFlush(any(User.class)))
+          .thenThrow(uniqueViolation("users_email_key"));
+
+      // Act & Assert
+      org.junit.jupiter.api.Assertions.assertThrows(
+          EmailAlreadyExistsException.class, () -> authService.signup(validSignupRequest));
+    }
+
+    private DataIntegrityViolationException uniqueViolation(String constraintName) {
+      return new DataIntegrityViolationException(
+          "duplicate key", new ConstraintViolationException("duplicate key", null, constraintName));
     }
   }
 
@@ -130,15 +169,9 @@ class AuthServiceTest {
       when(authenticationManager.authenticate(any(Authentication.class)))
           .thenReturn(authentication);
       when(tokenProvider.generateAccessToken(any(Authentication.class))).thenReturn("access-token");
-      // Mock the user repository findById call
-      when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-      when(refreshTokenRepository.save(any(RefreshToken.class)))
-          .thenAnswer(
-              i -> {
-                RefreshToken token = (RefreshToken) i.getArgument(0);
-                token.setId(1L);
-                return token;
-              });
+      when(userRepository.lockById(1L)).thenReturn(Optional.of(1L));
+      when(userRepository.getReferenceById(1L)).thenReturn(user);
+      validLoginRequest.setDeviceName("Phone");
 
       // Act
       LoginResponse response = authService.login(validLoginRequest);
@@ -148,15 +181,71 @@ class AuthServiceTest {
       assertThat(response.getRefreshToken()).isNotNull();
       verify(authenticationManager).authenticate(any(Authentication.class));
       verify(tokenProvider).generateAccessToken(any(Authentication.class));
-      verify(userRepository).findById(anyLong());
-      verify(refreshTokenRepository).save(any(RefreshToken.class));
+      ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+      var inOrder = inOrder(userRepository, refreshTokenRepository);
+      inOrder.verify(userRepository).lockById(1L);
+      inOrder.verify(refreshTokenRepository).saveAndFlush(saved.capture());
+      inOrder.verify(refreshTokenRepository).deleteLeastRecentlyUsed(eq(1L), anyInt());
+      assertThat(saved.getValue().getTokenHash())
+          .isEqualTo(TokenDigest.sha256(response.getRefreshToken()));
+      assertThat(saved.getValue().getDeviceName()).isEqualTo("Phone");
+      assertThat(saved.getValue().getFamilyId()).isNotNull();
+      verify(userRepository, never()).findById(anyLong());
+      verify(passwordRehashService, never()).rehash(anyLong(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should rehash the password in the background when the cost changed")
+    void shouldRehashPasswordWhenCostChanged() {
+      // Arrange
+      user.setPassword("$2a$08$storedHash");
+      authentication = new UsernamePasswordAuthenticationToken(UserPrincipal.create(user), null);
+      when(authenticationManager.authenticate(any(Authentication.class)))
+          .thenReturn(authentication);
+      when(passwordRehashService.needsRehash("$2a$08$storedHash")).thenReturn(true);
+      when(userRepository.lockById(1L)).thenReturn(Optional.of(1L));
+
+      // Act
+      authService.login(validLoginRequest);
+
+      // Assert
+      verify(passwordRehashService).rehash(1L, "$2a$08$storedHash", "password123");
+    }
+
+    @Test
+    @DisplayName("Should issue a signed refresh token and revoke evicted sessions when stateless")
+    void shouldIssueStatelessRefreshToken() {
+      // Arrange
+      UUID evicted = UUID.randomUUID();
+      when(authenticationManager.authenticate(any(Authentication.class)))
+          .thenReturn(authentication);
+      when(refreshTokenRevocations.isEnabled()).thenReturn(true);
+      when(userRepository.lockById(1L)).thenReturn(Optional.of(1L));
+      when(tokenProvider.generateRefreshToken(eq(1L), any(UUID.class), any(Instant.class)))
+          .thenReturn("signed-refresh-token");
+      when(refreshTokenRepository.findLeastRecentlyUsedFamilyIds(eq(1L), anyInt()))
+          .thenReturn(List.of(evicted));
+
+      // Act
+      LoginResponse response = authService.login(validLoginRequest);
+
+      // Assert
+      assertThat(response.getRefreshToken()).isEqualTo("signed-refresh-token");
+      ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+      verify(refreshTokenRepository).saveAndFlush(saved.capture());
+      assertThat(saved.getValue().getTokenHash())
+          .isEqualTo(TokenDigest.sha256("signed-refresh-token"));
+      verify(tokenProvider)
+          .generateRefreshToken(
+              1L, saved.getValue().getFamilyId(), saved.getValue().getExpiryDate());
+      verify(refreshTokenRevocations).revokeAll(List.of(evicted));
+      verify(refreshTokenRepository).deleteLeastRecentlyUsed(eq(1L), anyInt());
     }
   }
 
   @Nested
   @DisplayName("Refresh Token Tests")
   class RefreshTokenTests {
-    private RefreshToken validRefreshToken;
     private User user;
 
     @BeforeEach
@@ -165,22 +254,15 @@ class AuthServiceTest {
       roles.add(createUserRole());
 
       user = User.builder().id(1L).email("test@example.com").roles(roles).build();
-
-      validRefreshToken =
-          RefreshToken.builder()
-              .id(1L)
-              .user(user)
-              .token("valid-refresh-token")
-              .expiryDate(Instant.now().plusSeconds(3600))
-              .build();
     }
 
     @Test
-    @DisplayName("Should successfully refresh token")
+    @DisplayName("Should rotate opaque refresh tokens in the database")
     void shouldRefreshTokenSuccessfully() {
       // Arrange
-      when(refreshTokenRepository.findByToken(anyString()))
-          .thenReturn(Optional.of(validRefreshToken));
+      when(refreshTokenRotator.rotate("valid-refresh-token"))
+          .thenReturn(new RefreshTokenRotator.Rotation(1L, "next-refresh-token"));
+      when(userDetailsService.loadUserById(1L)).thenReturn(UserPrincipal.create(user));
       when(tokenProvider.generateAccessToken(any(Authentication.class)))
           .thenReturn("new-access-token");
 
@@ -189,56 +271,117 @@ class AuthServiceTest {
 
       // Assert
       assertThat(response.getAccessToken()).isEqualTo("new-access-token");
-      assertThat(response.getRefreshToken()).isEqualTo("valid-refresh-token");
+      assertThat(response.getRefreshToken()).isEqualTo("next-refresh-token");
+      verify(tokenProvider, never()).parseRefreshToken(anyString());
     }
 
     @Test
-    @DisplayName("Should throw exception when refresh token is expired")
-    void shouldThrowExceptionWhenRefreshTokenExpired() {
+    @DisplayName("Should refresh a stateless token without touching the database")
+    void shouldRefreshStatelessToken() {
       // Arrange
-      RefreshToken expiredToken =
-          RefreshToken.builder()
-              .id(1L)
-              .user(user)
-              .token("expired-token")
-              .expiryDate(Instant.now().minusSeconds(3600))
-              .build();
+      UUID familyId = UUID.randomUUID();
+      when(refreshTokenRevocations.isEnabled()).thenReturn(true);
+      when(tokenProvider.parseRefreshToken("signed-refresh-token"))
+          .thenReturn(Optional.of(claims(familyId)));
+      when(userDetailsService.loadUserById(1L)).thenReturn(UserPrincipal.create(user));
+      when(tokenProvider.generateAccessToken(any(Authentication.class)))
+          .thenReturn("new-access-token");
 
-      when(refreshTokenRepository.findByToken(anyString())).thenReturn(Optional.of(expiredToken));
+      // Act
+      var response = authService.refreshToken("signed-refresh-token");
+
+      // Assert
+      assertThat(response.getAccessToken()).isEqualTo("new-access-token");
+      assertThat(response.getRefreshToken()).isEqualTo("signed-refresh-token");
+      verify(refreshTokenRevocations).isRevoked(familyId);
+      verifyNoInteractions(refreshTokenRotator, refreshTokenRepository, userRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a stateless token of a revoked session")
+    void shouldRejectRevokedStatelessToken() {
+      // Arrange
+      UUID familyId = UUID.randomUUID();
+      when(refreshTokenRevocations.isEnabled()).thenReturn(true);
+      when(tokenProvider.parseRefreshToken("signed-refresh-token"))
+          .thenReturn(Optional.of(claims(familyId)));
+      when(refreshTokenRevocations.isRevoked(familyId)).thenReturn(true);
 
       // Act & Assert
       org.junit.jupiter.api.Assertions.assertThrows(
-          TokenRefreshException.class, () -> authService.refreshToken("expired-token"));
-      verify(refreshTokenRepository).delete(expiredToken);
+          TokenRefreshException.class, () -> authService.refreshToken("signed-refresh-token"));
+      verify(tokenProvider, never()).generateAccessToken(any());
+      verifyNoInteractions(refreshTokenRotator);
+    }
+
+    @Test
+    @DisplayName("Should still rotate opaque tokens issued before stateless mode")
+    void shouldRotateOpaqueTokenWhenStateless() {
+      // Arrange
+      when(refreshTokenRevocations.isEnabled()).thenReturn(true);
+      when(tokenProvider.parseRefreshToken("opaque-refresh-token")).thenReturn(Optional.empty());
+      when(refreshTokenRotator.rotate("opaque-refresh-token"))
+          .thenReturn(new RefreshTokenRotator.Rotation(1L, "next-refresh-token"));
+      when(userDetailsService.loadUserById(1L)).thenReturn(UserPrincipal.create(user));
+
+      // Act
+      var response = authService.refreshToken("opaque-refresh-token");
+
+      // Assert
+      assertThat(response.getRefreshToken()).isEqualTo("next-refresh-token");
+    }
+
+    private RefreshTokenClaims claims(UUID familyId) {
+      Instant now = Instant.now();
+      return new RefreshTokenClaims(1L, familyId, "jti", now, now.plusSeconds(3600));
     }
   }
 
   @Nested
   @DisplayName("Logout Tests")
   class LogoutTests {
-    private User user;
+    @Test
+    @DisplayName("Should successfully logout user")
+    void shouldLogoutSuccessfully() {
+      // Act
+      authService.logout(1L, null);
 
-    @BeforeEach
-    void setUp() {
-      Set<Role> roles = new HashSet<>();
-      roles.add(createUserRole());
+      // Assert
+      verify(refreshTokenRepository).deleteAllByUserId(1L);
+      verify(refreshTokenRepository, never()).findFamilyIdsByUserId(anyLong());
+      verify(tokenVersionRegistry).revoke(1L);
+      verifyNoInteractions(userRepository, accessTokenRevocations);
+    }
 
-      user = User.builder().id(1L).email("test@example.com").roles(roles).build();
+    @Test
+    @DisplayName("Should revoke every session family on logout when stateless")
+    void shouldRevokeFamiliesOnStatelessLogout() {
+      // Arrange
+      UUID familyId = UUID.randomUUID();
+      when(refreshTokenRevocations.isEnabled()).thenReturn(true);
+      when(refreshTokenRepository.findFamilyIdsByUserId(1L)).thenReturn(List.of(familyId));
+
+      // Act
+      authService.logout(1L, null);
+
+      // Assert
+      var inOrder = inOrder(refreshTokenRevocations, refreshTokenRepository);
+      inOrder.verify(refreshTokenRevocations).revokeAll(List.of(familyId));
+      inOrder.verify(refreshTokenRepository).deleteAllByUserId(1L);
     }
 
     @Test
-    @DisplayName("Should successfully logout user")
-    void shouldLogoutSuccessfully() {
+    @DisplayName("Should deny the access token used to log out")
+    void shouldRevokeCurrentAccessToken() {
       // Arrange
-      when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-      doNothing().when(refreshTokenRepository).deleteByUser(any(User.class));
+      Instant expiresAt = Instant.now().plusSeconds(3600);
+      VerifiedToken own = new VerifiedToken(1L, null, null, 0, expiresAt, "own-jti");
 
       // Act
-      authService.logout("test@example.com");
+      authService.logout(1L, own);
 
       // Assert
-      verify(userRepository).findByEmail("test@example.com");
-      verify(refreshTokenRepository).deleteByUser(user);
+      verify(accessTokenRevocations).revoke("own-jti", expiresAt);
     }
   }
 }
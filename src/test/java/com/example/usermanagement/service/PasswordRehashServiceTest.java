@@ -0,0 +1,51 @@
+package com.example.usermanagement.service;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.example.usermanagement.exception.ServiceBusyException;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.BcryptCostCalibrator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordRehashServiceTest {
+  @Mock private UserRepository userRepository;
+  @Mock private PasswordEncoder passwordEncoder;
+  @Mock private BcryptCostCalibrator bcryptCostCalibrator;
+
+  @InjectMocks private PasswordRehashService passwordRehashService;
+
+  @Test
+  @DisplayName("Should replace the verified hash only if it is unchanged")
+  void shouldReplaceVerifiedHash() {
+    // Arrange
+    when(passwordEncoder.encode("password123")).thenReturn("$2a$12$new");
+
+    // Act
+    passwordRehashService.rehash(1L, "$2a$10$old", "password123");
+
+    // Assert
+    verify(userRepository).updatePasswordIfUnchanged(1L, "$2a$10$old", "$2a$12$new");
+  }
+
+  @Test
+  @DisplayName("Should skip the rehash when the hashing pool is busy")
+  void shouldSkipWhenBusy() {
+    // Arrange
+    when(passwordEncoder.encode(anyString())).thenThrow(new ServiceBusyException("busy"));
+
+    // Act
+    passwordRehashService.rehash(1L, "$2a$10$old", "password123");
+
+    // Assert
+    verify(userRepository, never()).updatePasswordIfUnchanged(anyLong(), anyString(), anyString());
+  }
+}
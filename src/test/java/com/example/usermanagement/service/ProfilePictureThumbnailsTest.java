@@ -0,0 +1,151 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ProfilePictureThumbnailsTest {
+  private final S3Service s3Service = mock(S3Service.class);
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ProfilePictureThumbnails thumbnails =
+      new ProfilePictureThumbnails(
+          s3Service, userRepository, meterRegistry, List.of(64, 256), 0.8f, 40_000_000, 1, 1);
+
+  @AfterEach
+  void tearDown() {
+    thumbnails.destroy();
+  }
+
+  @Test
+  @DisplayName("Should store each size beside the original and record them")
+  void shouldGenerateThumbnails() throws Exception {
+    // Arrange
+    String key = "profile-pictures/1/a.png";
+    when(s3Service.openFile(key)).thenReturn(new ByteArrayInputStream(png(1600, 1200)));
+    Map<String, byte[]> stored = new HashMap<>();
+    when(userRepository.updateProfilePictureThumbnails(1L, key, new Integer[] {256, 64}))
+        .thenReturn(1);
+    doAnswer(invocation -> stored.put(invocation.getArgument(0), invocation.getArgument(1)))
+        .when(s3Service)
+        .putFile(anyString(), any(byte[].class), eq("image/jpeg"));
+
+    // Act
+    thumbnails.generate(1L, key);
+
+    // Assert
+    assertThat(stored)
+        .containsOnlyKeys(
+            "profile-pictures/1/thumbnails/a_64.jpg", "profile-pictures/1/thumbnails/a_256.jpg");
+    BufferedImage small =
+        ImageIO.read(
+            new ByteArrayInputStream(stored.get("profile-pictures/1/thumbnails/a_64.jpg")));
+    assertThat(small.getWidth()).isEqualTo(64);
+    assertThat(small.getHeight()).isEqualTo(48);
+    verify(s3Service, never()).deleteFile(anyString());
+  }
+
+  @Test
+  @DisplayName("Should delete its thumbnails if the picture was replaced meanwhile")
+  void shouldDiscardStaleThumbnails() throws Exception {
+    // Arrange
+    String key = "profile-pictures/1/a.png";
+    when(s3Service.openFile(key)).thenReturn(new ByteArrayInputStream(png(300, 300)));
+    when(userRepository.updateProfilePictureThumbnails(1L, key, new Integer[] {256, 64}))
+        .thenReturn(0);
+
+    // Act
+    thumbnails.generate(1L, key);
+
+    // Assert
+    verify(s3Service).deleteFile("profile-pictures/1/thumbnails/a_256.jpg");
+    verify(s3Service).deleteFile("profile-pictures/1/thumbnails/a_64.jpg");
+  }
+
+  @Test
+  @DisplayName("Should decode large images subsampled and never scale small ones up")
+  void shouldSubsampleAndNotUpscale() throws Exception {
+    // Act
+    BufferedImage decoded =
+        ProfilePictureThumbnails.decode(new ByteArrayInputStream(png(2000, 1000)), 256, 40_000_000);
+    BufferedImage tiny =
+        ProfilePictureThumbnails.resize(new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB), 64);
+
+    // Assert
+    assertThat(decoded.getWidth()).isEqualTo(667);
+    assertThat(tiny.getWidth()).isEqualTo(40);
+    assertThat(tiny.getHeight()).isEqualTo(20);
+    assertThat(
+            ProfilePictureThumbnails.decode(
+                new ByteArrayInputStream(png(2000, 1000)), 256, 1_000_000))
+        .isNull();
+    assertThat(
+            ProfilePictureThumbnails.decode(
+                new ByteArrayInputStream("not an image".getBytes()), 256, 40_000_000))
+        .isNull();
+  }
+
+  @Test
+  @DisplayName("Should skip pictures instead of queueing without bound")
+  void shouldDropWhenQueueIsFull() throws Exception {
+    // Arrange
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(s3Service.openFile(anyString()))
+        .thenAnswer(
+            invocation -> {
+              started.countDown();
+              release.await();
+              return new ByteArrayInputStream(new byte[0]);
+            });
+    thumbnails.onProfilePictureChanged(new ProfilePictureChangedEvent(1L, "a.png"));
+    started.await();
+
+    // Act
+    thumbnails.onProfilePictureChanged(new ProfilePictureChangedEvent(2L, "b.png"));
+    thumbnails.onProfilePictureChanged(new ProfilePictureChangedEvent(3L, "c.png"));
+    release.countDown();
+
+    // Assert
+    assertThat(meterRegistry.counter("profile_pictures.thumbnails.dropped").count()).isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("Should name variants after the original, in a directory of their own")
+  void shouldNameVariants() {
+    // Assert
+    assertThat(ProfilePictureThumbnails.variantKey("profile-pictures/1/a.png", 64))
+        .isEqualTo("profile-pictures/1/thumbnails/a_64.jpg");
+    assertThat(ProfilePictureThumbnails.variantKey("profile-pictures/1.5/a", 64))
+        .isEqualTo("profile-pictures/1.5/thumbnails/a_64.jpg");
+    assertThat(thumbnails.variantKeys("p/a.png", new Integer[] {128}))
+        .containsExactly(
+            "p/thumbnails/a_256.jpg", "p/thumbnails/a_64.jpg", "p/thumbnails/a_128.jpg");
+  }
+
+  private static byte[] png(int width, int height) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", bytes);
+    return bytes.toByteArray();
+  }
+}
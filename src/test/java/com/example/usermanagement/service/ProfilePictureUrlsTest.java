@@ -0,0 +1,99 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+class ProfilePictureUrlsTest {
+  private static final String KEY = "profile-pictures/1/a.png";
+
+  private S3Service s3Service;
+  private ProfilePictureUrls profilePictureUrls;
+  private int signed;
+
+  @BeforeEach
+  void setUp() {
+    s3Service = mock(S3Service.class);
+    profilePictureUrls =
+        new ProfilePictureUrls(
+            s3Service, new SimpleMeterRegistry(), Duration.ofHours(1), Duration.ofMinutes(5), 100);
+  }
+
+  private void presignFor(Duration validity) {
+    when(s3Service.presignDownload(eq(KEY), any(Duration.class)))
+        .thenAnswer(
+            invocation -> {
+              PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+              when(presigned.url())
+                  .thenReturn(
+                      URI.create("http://localhost:4566/user-profiles/" + KEY + "?v=" + signed++)
+                          .toURL());
+              when(presigned.expiration()).thenReturn(Instant.now().plus(validity));
+              return presigned;
+            });
+  }
+
+  @Test
+  @DisplayName("Should sign a key once and reuse the URL while it is fresh")
+  void shouldReuseSignedUrl() {
+    // Arrange
+    presignFor(Duration.ofHours(1));
+
+    // Act
+    String first = profilePictureUrls.resolve(KEY);
+    String second = profilePictureUrls.resolve(KEY);
+
+    // Assert
+    assertThat(first).startsWith("http://localhost:4566/user-profiles/" + KEY).isEqualTo(second);
+    verify(s3Service, times(1)).presignDownload(KEY, Duration.ofHours(1));
+  }
+
+  @Test
+  @DisplayName("Should re-sign a URL that is about to expire")
+  void shouldResignNearExpiry() {
+    // Arrange
+    presignFor(Duration.ofMinutes(4));
+
+    // Act
+    String first = profilePictureUrls.resolve(KEY);
+    String second = profilePictureUrls.resolve(KEY);
+
+    // Assert
+    assertThat(second).isNotEqualTo(first);
+    verify(s3Service, times(2)).presignDownload(eq(KEY), any(Duration.class));
+  }
+
+  @Test
+  @DisplayName("Should re-sign an evicted key")
+  void shouldResignAfterEvict() {
+    // Arrange
+    presignFor(Duration.ofHours(1));
+    String first = profilePictureUrls.resolve(KEY);
+
+    // Act
+    profilePictureUrls.evict(KEY);
+
+    // Assert
+    assertThat(profilePictureUrls.resolve(KEY)).isNotEqualTo(first);
+  }
+
+  @Test
+  @DisplayName("Should pass through provider URLs and missing pictures without signing")
+  void shouldPassThroughUrls() {
+    // Act & Assert
+    assertThat(profilePictureUrls.resolve("https://avatars.example.com/u/1"))
+        .isEqualTo("https://avatars.example.com/u/1");
+    assertThat(profilePictureUrls.resolve(null)).isNull();
+    verifyNoInteractions(s3Service);
+  }
+}
@@ -0,0 +1,211 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.usermanagement.dto.TokenRefreshResponse;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/** Runs the application against a schema migrated with the optional partitioned layout. */
+@SpringBootTest
+@ActiveProfiles("it")
+@TestPropertySource(
+    properties = {
+      "spring.datasource.hikari.schema=partitioned_it",
+      "spring.flyway.default-schema=partitioned_it",
+      "spring.flyway.schemas=partitioned_it",
+      "spring.flyway.locations=classpath:db/migration,classpath:db/partitioned"
+    })
+class RefreshTokenPartitionsIT {
+  private static final int PARALLEL_LOGINS = 16;
+
+  @Autowired private AuthService authService;
+  @Autowired private RefreshTokenPartitions refreshTokenPartitions;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private FlywayProperties flywayProperties;
+
+  @Value("${app.refresh-tokens.max-sessions-per-user}")
+  private int maxSessionsPerUser;
+
+  private Long userId;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update("DELETE FROM refresh_tokens");
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_partitioned%'");
+    userId =
+        jdbcTemplate.queryForObject(
+            "INSERT INTO users (username, email, provider) VALUES ('it_partitioned',"
+                + " 'it_partitioned@example.com', 'LOCAL') RETURNING id",
+            Long.class);
+  }
+
+  private List<String> partitions() {
+    return jdbcTemplate.queryForList(
+        "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+            + " WHERE i.inhparent = 'refresh_tokens'::regclass ORDER BY c.relname",
+        String.class);
+  }
+
+  private int tokenRows() {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM refresh_tokens WHERE user_id = ?", Integer.class, userId);
+  }
+
+  @Test
+  @DisplayName("Should detect the partitioned table and keep partitions ahead of time")
+  void shouldCreatePartitionsAhead() {
+    // Assert
+    YearMonth current = YearMonth.now(ZoneId.systemDefault());
+    assertThat(refreshTokenPartitions.isPartitioned()).isTrue();
+    assertThat(partitions())
+        .contains(
+            "refresh_tokens_p" + current.toString().replace('-', '_'),
+            "refresh_tokens_p" + current.plusMonths(3).toString().replace('-', '_'));
+  }
+
+  @Test
+  @DisplayName("Should rotate a session's token and find it by digest")
+  void shouldRotateAndRefresh() {
+    // Arrange
+    authService.createRefreshToken(userId, "Laptop");
+    String token = authService.createRefreshToken(userId, "Phone");
+
+    // Act
+    TokenRefreshResponse response = authService.refreshToken(token);
+
+    // Assert
+    assertThat(authService.refreshToken(response.getRefreshToken()).getAccessToken()).isNotBlank();
+    assertThat(tokenRows()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should hold the session cap under concurrent logins for one user")
+  void shouldSerializeConcurrentLogins() throws Exception {
+    // Arrange
+    ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_LOGINS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < PARALLEL_LOGINS; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int j = 0; j < 10; j++) {
+                  authService.createRefreshToken(userId, "Device");
+                }
+                return null;
+              }));
+    }
+
+    // Act
+    start.countDown();
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+
+    // Assert
+    assertThat(tokenRows()).isEqualTo(maxSessionsPerUser);
+  }
+
+  @Test
+  @DisplayName("Should drop the partitions of months that are over")
+  void shouldDropExpiredPartitions() {
+    // Arrange
+    YearMonth current = YearMonth.now(ZoneId.systemDefault());
+    YearMonth past = current.minusMonths(2);
+    String expired = "refresh_tokens_p" + past.toString().replace('-', '_');
+    jdbcTemplate.execute(
+        "CREATE TABLE IF NOT EXISTS "
+            + expired
+            + " PARTITION OF refresh_tokens FOR VALUES FROM ('"
+            + past.atDay(1)
+            + "') TO ('"
+            + past.plusMonths(1).atDay(1)
+            + "')");
+    jdbcTemplate.update(
+        "INSERT INTO refresh_tokens (user_id, family_id, token_hash, expiry_date)"
+            + " VALUES (?, gen_random_uuid(), ?, ?)",
+        userId,
+        new byte[] {1},
+        Timestamp.valueOf(past.atDay(15).atStartOfDay()));
+
+    // Act
+    refreshTokenPartitions.maintain(current);
+
+    // Assert
+    assertThat(partitions())
+        .doesNotContain(expired)
+        .contains("refresh_tokens_p" + current.toString().replace('-', '_'));
+    assertThat(tokenRows()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should keep the indexes of later migrations when partitioning an existing database")
+  void shouldKeepIndexesWhenPartitionedLate() {
+    // Arrange
+    String schema = "partitioned_late_it";
+    Flyway fresh = flyway(schema, "classpath:db/migration", "classpath:db/partitioned");
+    fresh.clean();
+    fresh.migrate();
+    List<String> freshIndexes = indexes(schema);
+    Flyway plain = flyway(schema, "classpath:db/migration");
+    plain.clean();
+    plain.migrate();
+
+    try {
+      // Act
+      flyway(schema, "classpath:db/migration", "classpath:db/partitioned").migrate();
+
+      // Assert
+      assertThat(indexes(schema))
+          .containsExactlyInAnyOrderElementsOf(freshIndexes)
+          .contains(
+              "refresh_tokens_family_id_idx",
+              "refresh_tokens_previous_token_hash_idx",
+              "refresh_tokens_created_at_user_id_idx");
+    } finally {
+      jdbcTemplate.execute("DROP SCHEMA " + schema + " CASCADE");
+    }
+  }
+
+  /** Migrates another schema the way the application is configured to, from the given locations. */
+  private Flyway flyway(String schema, String... locations) {
+    return Flyway.configure()
+        .dataSource(jdbcTemplate.getDataSource())
+        .schemas(schema)
+        .locations(locations)
+        .placeholders(flywayProperties.getPlaceholders())
+        .outOfOrder(true)
+        .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+        .cleanDisabled(false)
+        .load();
+  }
+
+  private List<String> indexes(String schema) {
+    return jdbcTemplate.queryForList(
+        "SELECT indexname FROM pg_indexes WHERE schemaname = ? AND tablename = 'refresh_tokens'",
+        String.class,
+        schema);
+  }
+}
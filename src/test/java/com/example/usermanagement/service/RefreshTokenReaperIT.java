@@ -0,0 +1,69 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@ActiveProfiles("it")
+@TestPropertySource(
+    properties = {
+      "app.refresh-token-reaper.chunk-size=3",
+      "app.refresh-token-reaper.chunk-pause=0"
+    })
+class RefreshTokenReaperIT {
+  private static final int EXPIRED = 7;
+  private static final int LIVE = 2;
+
+  @Autowired private RefreshTokenReaper reaper;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update("DELETE FROM refresh_tokens");
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_reaper%'");
+    for (int i = 0; i < EXPIRED + LIVE; i++) {
+      Long userId =
+          jdbcTemplate.queryForObject(
+              "INSERT INTO users (username, email, provider) VALUES (?, ?, 'LOCAL') RETURNING id",
+              Long.class,
+              "it_reaper_" + i,
+              "it_reaper_" + i + "@example.com");
+      Instant expiry = Instant.now().plus(Duration.ofHours(i < EXPIRED ? -1 : 1));
+      jdbcTemplate.update(
+          "INSERT INTO refresh_tokens (user_id, family_id, token_hash, expiry_date)"
+              + " VALUES (?, gen_random_uuid(), ?, ?)",
+          userId,
+          new byte[] {(byte) i},
+          Timestamp.from(expiry));
+    }
+  }
+
+  @Test
+  @DisplayName("Should delete every expired token in chunks and keep live ones")
+  void shouldReapExpiredTokens() {
+    // Act
+    long reaped = reaper.reap();
+
+    // Assert
+    assertThat(reaped).isEqualTo(EXPIRED);
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM refresh_tokens", Integer.class))
+        .isEqualTo(LIVE);
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_indexes WHERE schemaname = current_schema()"
+                    + " AND indexname = 'refresh_tokens_expiry_date_idx'",
+                Integer.class))
+        .isEqualTo(1);
+  }
+}
@@ -0,0 +1,58 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RefreshTokenReaperTest {
+  private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private RefreshTokenReaper reaper;
+
+  @BeforeEach
+  void setUp() {
+    reaper = new RefreshTokenReaper(refreshTokenRepository, meterRegistry, 100, 0, 5);
+  }
+
+  @Test
+  @DisplayName("Should delete chunk after chunk until a chunk comes back short")
+  void shouldReapUntilShortChunk() {
+    // Arrange
+    when(refreshTokenRepository.deleteExpiredChunk(any(Instant.class), eq(100)))
+        .thenReturn(100, 100, 42);
+
+    // Act
+    long reaped = reaper.reap();
+
+    // Assert
+    assertThat(reaped).isEqualTo(242);
+    verify(refreshTokenRepository, times(3)).deleteExpiredChunk(any(Instant.class), eq(100));
+    assertThat(meterRegistry.get("refresh_tokens.reaped").counter().count()).isEqualTo(242);
+    assertThat(meterRegistry.get("refresh_tokens.reap.chunk").timer().count()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should stop after the maximum number of chunks per run")
+  void shouldStopAtMaxChunks() {
+    // Arrange
+    when(refreshTokenRepository.deleteExpiredChunk(any(Instant.class), eq(100))).thenReturn(100);
+
+    // Act
+    long reaped = reaper.reap();
+
+    // Assert
+    assertThat(reaped).isEqualTo(500);
+    verify(refreshTokenRepository, times(5)).deleteExpiredChunk(any(Instant.class), eq(100));
+  }
+}
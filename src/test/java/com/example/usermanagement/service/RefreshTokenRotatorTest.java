@@ -0,0 +1,125 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.usermanagement.entity.RefreshToken;
+import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.TokenRefreshException;
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import com.example.usermanagement.security.JwtTokenProvider;
+import com.example.usermanagement.security.TokenDigest;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenRotatorTest {
+  @Mock private RefreshTokenRepository refreshTokenRepository;
+  @Mock private JwtTokenProvider tokenProvider;
+
+  @InjectMocks private RefreshTokenRotator refreshTokenRotator;
+
+  private RefreshToken validRefreshToken;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    user = User.builder().id(1L).email("test@example.com").build();
+
+    validRefreshToken =
+        RefreshToken.builder()
+            .id(1L)
+            .user(user)
+            .familyId(UUID.randomUUID())
+            .tokenHash(TokenDigest.sha256("valid-refresh-token"))
+            .expiryDate(Instant.now().plusSeconds(3600))
+            .build();
+  }
+
+  @Test
+  @DisplayName("Should rotate the refresh token of the family")
+  void shouldRefreshTokenSuccessfully() {
+    // Arrange
+    byte[] currentHash = TokenDigest.sha256("valid-refresh-token");
+    when(refreshTokenRepository.findByTokenHash(aryEq(currentHash)))
+        .thenReturn(Optional.of(validRefreshToken));
+    when(refreshTokenRepository.rotate(
+            eq(1L), aryEq(currentHash), any(byte[].class), any(Instant.class), any(Instant.class)))
+        .thenReturn(1);
+
+    // Act
+    RefreshTokenRotator.Rotation rotation = refreshTokenRotator.rotate("valid-refresh-token");
+
+    // Assert
+    assertThat(rotation.userId()).isEqualTo(1L);
+    assertThat(rotation.refreshToken()).isNotEqualTo("valid-refresh-token");
+    verify(refreshTokenRepository)
+        .rotate(
+            eq(1L),
+            aryEq(currentHash),
+            aryEq(TokenDigest.sha256(rotation.refreshToken())),
+            any(Instant.class),
+            any(Instant.class));
+  }
+
+  @Test
+  @DisplayName("Should revoke the family when a rotated-out token is presented again")
+  void shouldRevokeFamilyOnReuse() {
+    // Arrange
+    when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+    when(refreshTokenRepository.findByPreviousTokenHash(
+            aryEq(TokenDigest.sha256("valid-refresh-token"))))
+        .thenReturn(Optional.of(validRefreshToken));
+
+    // Act & Assert
+    assertThrows(
+        TokenRefreshException.class, () -> refreshTokenRotator.rotate("valid-refresh-token"));
+    verify(refreshTokenRepository).deleteByFamilyId(validRefreshToken.getFamilyId());
+    verify(refreshTokenRepository, never()).rotate(anyLong(), any(), any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should revoke the family when a concurrent refresh rotated the token first")
+  void shouldRevokeFamilyWhenRotationLost() {
+    // Arrange
+    when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(validRefreshToken));
+    when(refreshTokenRepository.rotate(anyLong(), any(), any(), any(), any())).thenReturn(0);
+
+    // Act & Assert
+    assertThrows(
+        TokenRefreshException.class, () -> refreshTokenRotator.rotate("valid-refresh-token"));
+    verify(refreshTokenRepository).deleteByFamilyId(validRefreshToken.getFamilyId());
+  }
+
+  @Test
+  @DisplayName("Should throw exception when refresh token is expired")
+  void shouldThrowExceptionWhenRefreshTokenExpired() {
+    // Arrange
+    RefreshToken expiredToken =
+        RefreshToken.builder()
+            .id(1L)
+            .user(user)
+            .tokenHash(TokenDigest.sha256("expired-token"))
+            .expiryDate(Instant.now().minusSeconds(3600))
+            .build();
+
+    when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(expiredToken));
+
+    // Act & Assert
+    assertThrows(TokenRefreshException.class, () -> refreshTokenRotator.rotate("expired-token"));
+    verify(refreshTokenRepository).delete(expiredToken);
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.example.usermanagement.entity.Role;
+import com.example.usermanagement.exception.ResourceNotFoundException;
+import com.example.usermanagement.repository.RoleRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+
+@ExtendWith(MockitoExtension.class)
+class RoleRegistryTest {
+  @Mock private RoleRepository roleRepository;
+
+  @InjectMocks private RoleRegistry roleRegistry;
+
+  private Role role(long id, Role.RoleName name) {
+    return new Role(id, name);
+  }
+
+  @Test
+  @DisplayName("Should serve roles from memory after loading them once")
+  void shouldServeRolesFromMemory() {
+    // Arrange
+    when(roleRepository.findAll())
+        .thenReturn(List.of(role(1L, Role.RoleName.ROLE_USER), role(2L, Role.RoleName.ROLE_ADMIN)));
+    roleRegistry.initialize();
+
+    // Act
+    Role user = roleRegistry.get(Role.RoleName.ROLE_USER);
+    Role admin = roleRegistry.get(Role.RoleName.ROLE_ADMIN);
+
+    // Assert
+    assertThat(user.getId()).isEqualTo(1L);
+    assertThat(admin.getId()).isEqualTo(2L);
+    verify(roleRepository, times(2)).findAll();
+    verify(roleRepository, never()).save(any(Role.class));
+  }
+
+  @Test
+  @DisplayName("Should seed roles missing from the table")
+  void shouldSeedMissingRoles() {
+    // Arrange
+    when(roleRepository.findAll())
+        .thenReturn(List.of(role(1L, Role.RoleName.ROLE_USER)))
+        .thenReturn(List.of(role(1L, Role.RoleName.ROLE_USER), role(2L, Role.RoleName.ROLE_ADMIN)));
+
+    // Act
+    roleRegistry.initialize();
+
+    // Assert
+    verify(roleRepository).save(argThat(r -> r.getName() == Role.RoleName.ROLE_ADMIN));
+    assertThat(roleRegistry.get(Role.RoleName.ROLE_ADMIN).getId()).isEqualTo(2L);
+  }
+
+  @Test
+  @DisplayName("Should re-read the table once before giving up on an unknown role")
+  void shouldRefreshOnMiss() {
+    // Arrange
+    when(roleRepository.findAll()).thenReturn(List.of());
+
+    // Act & Assert
+    assertThrows(ResourceNotFoundException.class, () -> roleRegistry.get(Role.RoleName.ROLE_USER));
+    verify(roleRepository).findAll();
+  }
+
+  @Test
+  @DisplayName("Should share authority instances and lists between principals")
+  void shouldShareAuthorities() {
+    // Arrange
+    Set<Role> roles = Set.of(role(1L, Role.RoleName.ROLE_USER), role(2L, Role.RoleName.ROLE_ADMIN));
+
+    // Act
+    List<GrantedAuthority> first = RoleRegistry.authorities(roles);
+    List<GrantedAuthority> second = RoleRegistry.authorities(roles);
+
+    // Assert
+    assertThat(second).isSameAs(first);
+    assertThat(first)
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    assertThat(RoleRegistry.authority("ROLE_USER")).isSameAs(first.get(0));
+    assertThat(RoleRegistry.authority("ROLE_OTHER").getAuthority()).isEqualTo("ROLE_OTHER");
+  }
+}
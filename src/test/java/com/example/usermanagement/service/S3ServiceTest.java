@@ -5,7 +5,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import com.example.usermanagement.exception.PayloadTooLargeException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,18 +21,39 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 @ExtendWith(MockitoExtension.class)
 class S3ServiceTest {
 
   @Mock private S3Client s3Client;
+  @Mock private S3AsyncClient s3AsyncClient;
+  @Mock private S3Presigner s3Presigner;
   @InjectMocks private S3Service s3Service;
 
   private MultipartFile testFile;
@@ -37,6 +64,8 @@ class S3ServiceTest {
     testFile =
         new MockMultipartFile("file", "test.jpg", "image/jpeg", "test image content".getBytes());
     ReflectionTestUtils.setField(s3Service, "bucketName", BUCKET_NAME);
+    ReflectionTestUtils.setField(s3Service, "partSize", DataSize.ofMegabytes(5));
+    ReflectionTestUtils.setField(s3Service, "maxInFlightParts", 2);
   }
 
   @Test
@@ -90,6 +119,144 @@ class S3ServiceTest {
     verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
   }
 
+  @Test
+  @DisplayName("Should stream a file that fits in one part with a single PUT")
+  void shouldStreamSmallFileInOnePut() {
+    // Arrange
+    when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+        .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+    // Act
+    String key =
+        s3Service.uploadStream(
+            new ByteArrayInputStream(new byte[1000]), "dir", "image/png", ".png", 2000);
+
+    // Assert
+    assertThat(key).startsWith("dir/").endsWith(".png");
+    verify(s3AsyncClient)
+        .putObject(
+            argThat(
+                (PutObjectRequest request) ->
+                    request.key().equals(key) && request.contentType().equals("image/png")),
+            argThat((AsyncRequestBody body) -> body.contentLength().orElseThrow() == 1000));
+    verify(s3AsyncClient, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+  }
+
+  @Test
+  @DisplayName("Should stream a larger file as multipart upload parts")
+  void shouldStreamLargeFileInParts() {
+    // Arrange
+    int partSize = (int) DataSize.ofMegabytes(5).toBytes();
+    stubMultipartUpload();
+
+    // Act
+    s3Service.uploadStream(
+        new ByteArrayInputStream(new byte[2 * partSize + 10]),
+        "dir",
+        "image/png",
+        ".png",
+        3L * partSize);
+
+    // Assert
+    verify(s3AsyncClient, times(3))
+        .uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+    verify(s3AsyncClient)
+        .completeMultipartUpload(
+            argThat(
+                (CompleteMultipartUploadRequest request) ->
+                    request.uploadId().equals("upload")
+                        && request.multipartUpload().parts().size() == 3
+                        && request.multipartUpload().parts().get(2).partNumber() == 3));
+  }
+
+  @Test
+  @DisplayName("Should abort the multipart upload once the stream passes the size limit")
+  void shouldAbortOversizedStream() {
+    // Arrange
+    int partSize = (int) DataSize.ofMegabytes(5).toBytes();
+    stubMultipartUpload();
+    when(s3AsyncClient.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build()));
+
+    // Act & Assert
+    assertThrows(
+        PayloadTooLargeException.class,
+        () ->
+            s3Service.uploadStream(
+                new ByteArrayInputStream(new byte[2 * partSize]),
+                "dir",
+                "image/png",
+                ".png",
+                partSize + 100L));
+    verify(s3AsyncClient, times(1))
+        .uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class));
+    verify(s3AsyncClient)
+        .abortMultipartUpload(
+            argThat((AbortMultipartUploadRequest request) -> request.uploadId().equals("upload")));
+    verify(s3AsyncClient, never())
+        .completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+  }
+
+  private void stubMultipartUpload() {
+    when(s3AsyncClient.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                CreateMultipartUploadResponse.builder().uploadId("upload").build()));
+    when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.completedFuture(
+                    UploadPartResponse.builder()
+                        .eTag(
+                            "etag-"
+                                + invocation.getArgument(0, UploadPartRequest.class).partNumber())
+                        .build()));
+    lenient()
+        .when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+  }
+
+  @Test
+  @DisplayName("Should presign a PUT that signs the content type and length")
+  void shouldPresignUpload() {
+    // Arrange
+    S3Presigner presigner =
+        S3Presigner.builder()
+            .endpointOverride(URI.create("http://localhost:4566"))
+            .region(Region.US_EAST_1)
+            .credentialsProvider(
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+            .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+            .build();
+    S3Service service = new S3Service(s3Client, s3AsyncClient, presigner);
+    ReflectionTestUtils.setField(service, "bucketName", BUCKET_NAME);
+
+    // Act
+    PresignedPutObjectRequest presigned =
+        service.presignUpload("dir/a.png", "image/png", 512, Duration.ofMinutes(10));
+
+    // Assert
+    assertThat(presigned.url().toString())
+        .startsWith("http://localhost:4566/user-profiles/dir/a.png?");
+    assertThat(presigned.signedHeaders())
+        .containsEntry("content-type", List.of("image/png"))
+        .containsEntry("content-length", List.of("512"));
+    presigner.close();
+  }
+
+  @Test
+  @DisplayName("Should report a missing object as empty")
+  void shouldHeadMissingFile() {
+    // Arrange
+    when(s3Client.headObject(any(HeadObjectRequest.class)))
+        .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+    // Act & Assert
+    assertThat(s3Service.headFile("dir/missing.png")).isEmpty();
+  }
+
   @Test
   @DisplayName("Should successfully delete file")
   void shouldDeleteFile() {
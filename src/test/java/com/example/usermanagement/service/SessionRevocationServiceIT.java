@@ -0,0 +1,133 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.usermanagement.dto.SessionRevocationRequest;
+import com.example.usermanagement.entity.Role;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@ActiveProfiles("it")
+@TestPropertySource(properties = "app.session-revocation.batch-size=2")
+class SessionRevocationServiceIT {
+  @Autowired private SessionRevocationService sessionRevocationService;
+  @Autowired private AuthService authService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final List<Long> userIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    String ours = "(SELECT id FROM users WHERE username LIKE 'it_revoke%')";
+    jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id IN " + ours);
+    jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN " + ours);
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_revoke%'");
+    userIds.clear();
+    for (int i = 0; i < 3; i++) {
+      Long userId =
+          jdbcTemplate.queryForObject(
+              "INSERT INTO users (username, email, provider) VALUES (?, ?, 'LOCAL') RETURNING id",
+              Long.class,
+              "it_revoke_" + i,
+              "it_revoke_" + i + "@example.com");
+      authService.createRefreshToken(userId, "Laptop");
+      authService.createRefreshToken(userId, "Phone");
+      userIds.add(userId);
+    }
+  }
+
+  private int sessions(Long userId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM refresh_tokens WHERE user_id = ?", Integer.class, userId);
+  }
+
+  private int tokenVersion(Long userId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT token_version FROM users WHERE id = ?", Integer.class, userId);
+  }
+
+  @Test
+  @DisplayName("Should revoke listed users' sessions in batches and report each batch")
+  void shouldRevokeByUserIds() throws Exception {
+    // Arrange
+    SessionRevocationRequest request = new SessionRevocationRequest();
+    request.setUserIds(List.of(userIds.get(2), userIds.get(0), userIds.get(2), userIds.get(1)));
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+    // Act
+    SessionRevocationService.RevocationResult result =
+        sessionRevocationService.revoke(request, report);
+
+    // Assert
+    assertThat(result).isEqualTo(new SessionRevocationService.RevocationResult(3, 6));
+    assertThat(report.toString(StandardCharsets.UTF_8).split("\n"))
+        .containsExactly(
+            "{\"batch\":1,\"users\":2,\"sessions\":4}",
+            "{\"batch\":2,\"users\":1,\"sessions\":2}",
+            "{\"users\":3,\"sessions\":6}");
+    userIds.forEach(
+        userId -> {
+          assertThat(sessions(userId)).isZero();
+          assertThat(tokenVersion(userId)).isEqualTo(1);
+        });
+  }
+
+  @Test
+  @DisplayName("Should revoke the sessions of every user with a role")
+  void shouldRevokeByRole() throws Exception {
+    // Arrange
+    Long admin = userIds.get(1);
+    jdbcTemplate.update(
+        "INSERT INTO user_roles (user_id, role_id)"
+            + " SELECT ?, id FROM roles WHERE name = 'ROLE_ADMIN'",
+        admin);
+    SessionRevocationRequest request = new SessionRevocationRequest();
+    request.setRole(Role.RoleName.ROLE_ADMIN);
+
+    // Act
+    sessionRevocationService.revoke(request, new ByteArrayOutputStream());
+
+    // Assert
+    assertThat(sessions(admin)).isZero();
+    assertThat(sessions(userIds.get(0))).isEqualTo(2);
+    assertThat(tokenVersion(userIds.get(0))).isZero();
+  }
+
+  @Test
+  @DisplayName("Should only delete sessions created inside the window")
+  void shouldRevokeByCreationWindow() throws Exception {
+    // Arrange
+    Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    jdbcTemplate.update(
+        "UPDATE refresh_tokens SET created_at = ? WHERE user_id = ? AND device_name = 'Laptop'",
+        Timestamp.from(now.minus(2, ChronoUnit.DAYS)),
+        userIds.get(0));
+    SessionRevocationRequest request = new SessionRevocationRequest();
+    request.setCreatedFrom(now.minus(3, ChronoUnit.DAYS));
+    request.setCreatedTo(now.minus(1, ChronoUnit.DAYS));
+
+    // Act
+    SessionRevocationService.RevocationResult result =
+        sessionRevocationService.revoke(request, new ByteArrayOutputStream());
+
+    // Assert
+    assertThat(result.sessions()).isGreaterThanOrEqualTo(1);
+    assertThat(sessions(userIds.get(0))).isEqualTo(1);
+    assertThat(sessions(userIds.get(1))).isEqualTo(2);
+    assertThat(tokenVersion(userIds.get(0))).isEqualTo(1);
+  }
+}
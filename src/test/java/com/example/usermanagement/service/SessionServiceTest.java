@@ -0,0 +1,99 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.dto.SessionResponse;
+import com.example.usermanagement.entity.RefreshToken;
+import com.example.usermanagement.exception.ResourceNotFoundException;
+import com.example.usermanagement.repository.RefreshTokenRepository;
+import com.example.usermanagement.security.RefreshTokenRevocations;
+import com.example.usermanagement.security.UserPrincipal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+@ExtendWith(MockitoExtension.class)
+class SessionServiceTest {
+  @Mock private RefreshTokenRepository refreshTokenRepository;
+  @Mock private RefreshTokenRevocations refreshTokenRevocations;
+
+  @InjectMocks private SessionService sessionService;
+
+  private final UserPrincipal currentUser =
+      new UserPrincipal(1L, "test@example.com", null, Collections.emptyList(), null);
+
+  @Test
+  @DisplayName("Should list the user's sessions by family without exposing token digests")
+  void shouldListSessions() {
+    // Arrange
+    UUID familyId = UUID.randomUUID();
+    Instant lastUsed = Instant.now();
+    PageRequest pageable = PageRequest.of(0, 20);
+    when(refreshTokenRepository.findByUserIdOrderByLastUsedAtDesc(1L, pageable))
+        .thenReturn(
+            new PageImpl<>(
+                List.of(
+                    RefreshToken.builder()
+                        .familyId(familyId)
+                        .deviceName("Phone")
+                        .tokenHash(new byte[32])
+                        .lastUsedAt(lastUsed)
+                        .build()),
+                pageable,
+                1));
+
+    // Act
+    Page<SessionResponse> sessions = sessionService.getSessions(currentUser, pageable);
+
+    // Assert
+    assertThat(sessions.getContent())
+        .singleElement()
+        .satisfies(
+            session -> {
+              assertThat(session.getId()).isEqualTo(familyId);
+              assertThat(session.getDeviceName()).isEqualTo("Phone");
+              assertThat(session.getLastUsedAt()).isEqualTo(lastUsed);
+            });
+  }
+
+  @Test
+  @DisplayName("Should reject revoking a session of another user")
+  void shouldRejectUnknownSession() {
+    // Arrange
+    UUID familyId = UUID.randomUUID();
+    when(refreshTokenRepository.deleteByFamilyIdAndUserId(familyId, 1L)).thenReturn(0);
+
+    // Act & Assert
+    assertThrows(
+        ResourceNotFoundException.class, () -> sessionService.revokeSession(currentUser, familyId));
+    verify(refreshTokenRevocations, never()).revoke(familyId);
+  }
+
+  @Test
+  @DisplayName("Should revoke the family of a deleted session")
+  void shouldRevokeSession() {
+    // Arrange
+    UUID familyId = UUID.randomUUID();
+    when(refreshTokenRepository.deleteByFamilyIdAndUserId(familyId, 1L)).thenReturn(1);
+
+    // Act
+    sessionService.revokeSession(currentUser, familyId);
+
+    // Assert
+    verify(refreshTokenRevocations).revoke(familyId);
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.usermanagement.exception.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UserImportReaderTest {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private UserImportReader reader(String input, UserImportService.Format format) {
+    return new UserImportReader(
+        new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, objectMapper);
+  }
+
+  @Test
+  @DisplayName("Should map CSV columns by header name and unquote fields")
+  void shouldReadCsv() throws IOException {
+    // Arrange
+    UserImportReader reader =
+        reader(
+            "email,password,username\n"
+                + "jane@example.com,\"pa,ss\"\"word\",jane\n"
+                + "\n"
+                + "john@example.com,\"unterminated,john\n",
+            UserImportService.Format.CSV);
+
+    // Act
+    UserImportReader.Row first = reader.next();
+    UserImportReader.Row second = reader.next();
+    UserImportReader.Row end = reader.next();
+
+    // Assert
+    assertThat(first.line()).isEqualTo(2);
+    assertThat(first.request().getUsername()).isEqualTo("jane");
+    assertThat(first.request().getEmail()).isEqualTo("jane@example.com");
+    assertThat(first.request().getPassword()).isEqualTo("pa,ss\"word");
+    assertThat(second.line()).isEqualTo(4);
+    assertThat(second.error()).isEqualTo("Malformed CSV line");
+    assertThat(end).isNull();
+  }
+
+  @Test
+  @DisplayName("Should reject CSV without the required header columns")
+  void shouldRejectCsvWithoutHeader() {
+    // Arrange
+    UserImportReader reader =
+        reader("jane,jane@example.com,password\n", UserImportService.Format.CSV);
+
+    // Act & Assert
+    assertThrows(BadRequestException.class, reader::next);
+  }
+
+  @Test
+  @DisplayName("Should read JSON Lines and report malformed lines without stopping")
+  void shouldReadJsonLines() throws IOException {
+    // Arrange
+    UserImportReader reader =
+        reader(
+            "{\"username\":\"jane\",\"email\":\"jane@example.com\",\"password\":\"secret1\"}\n"
+                + "{not json}\n"
+                + "{\"username\":\"john\",\"email\":\"john@example.com\",\"password\":\"secret2\"}\n",
+            UserImportService.Format.JSON_LINES);
+
+    // Act
+    UserImportReader.Row first = reader.next();
+    UserImportReader.Row second = reader.next();
+    UserImportReader.Row third = reader.next();
+
+    // Assert
+    assertThat(first.request().getUsername()).isEqualTo("jane");
+    assertThat(second.line()).isEqualTo(2);
+    assertThat(second.error()).startsWith("Malformed JSON");
+    assertThat(third.request().getEmail()).isEqualTo("john@example.com");
+    assertThat(reader.next()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should report JSON lines that are not objects as malformed")
+  void shouldRejectJsonNonObjects() throws IOException {
+    // Arrange
+    UserImportReader reader =
+        reader("null\n[]\n\"jane\"\n42\n", UserImportService.Format.JSON_LINES);
+
+    // Act & Assert
+    for (int line = 1; line <= 4; line++) {
+      UserImportReader.Row row = reader.next();
+      assertThat(row.line()).isEqualTo(line);
+      assertThat(row.request()).isNull();
+      assertThat(row.error()).startsWith("Malformed JSON");
+    }
+    assertThat(reader.next()).isNull();
+  }
+}
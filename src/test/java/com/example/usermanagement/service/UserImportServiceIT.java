@@ -0,0 +1,77 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@ActiveProfiles("it")
+@TestPropertySource(properties = "app.user-import.batch-size=3")
+class UserImportServiceIT {
+  @Autowired private UserImportService userImportService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+        "DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'it_import%')");
+    jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'it_import%'");
+  }
+
+  @Test
+  @DisplayName("Should import valid rows in batches and report the rest per line")
+  void shouldImportAndReportErrors() throws Exception {
+    // Arrange
+    StringBuilder csv = new StringBuilder("username,email,password\n");
+    for (int i = 0; i < 7; i++) {
+      csv.append("it_import_")
+          .append(i)
+          .append(",it_import_")
+          .append(i)
+          .append("@example.com,")
+          .append("password")
+          .append(i)
+          .append('\n');
+    }
+    csv.append("it_import_0,it_import_dup@example.com,password\n"); // line 9: username taken
+    csv.append("it_import_x,not-an-email,password\n"); // line 10: invalid
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+    // Act
+    UserImportService.ImportResult result =
+        userImportService.importUsers(
+            new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+            UserImportService.Format.CSV,
+            report);
+
+    // Assert
+    assertThat(result.imported()).isEqualTo(7);
+    assertThat(result.failed()).isEqualTo(2);
+    assertThat(report.toString(StandardCharsets.UTF_8).split("\n"))
+        .containsExactly(
+            "{\"line\":10,\"email\":\"not-an-email\",\"error\":\"email must be a well-formed email address\"}",
+            "{\"line\":9,\"email\":\"it_import_dup@example.com\",\"error\":\"Username or email already exists\"}",
+            "{\"imported\":7,\"failed\":2}");
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM users u JOIN user_roles ur ON ur.user_id = u.id"
+                    + " JOIN roles r ON r.id = ur.role_id"
+                    + " WHERE u.username LIKE 'it_import%' AND r.name = 'ROLE_USER'",
+                Integer.class))
+        .isEqualTo(7);
+    String hash =
+        jdbcTemplate.queryForObject(
+            "SELECT password FROM users WHERE username = 'it_import_3'", String.class);
+    assertThat(hash).startsWith("$2a$");
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.usermanagement.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.usermanagement.dto.UserResponse;
+import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.UserPrincipal;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+/**
+ * Runs picture changes inside one request-scoped EntityManager, as open-in-view does for web
+ * requests, so a response built from an entity cached before the change would show.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class UserServiceProfilePictureIT {
+  private static final byte[] PNG =
+      new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H'};
+
+  @Autowired private UserService userService;
+  @Autowired private UserRepository userRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+  @MockBean private S3Service s3Service;
+  @MockBean private ProfilePictureUrls profilePictureUrls;
+
+  private UserPrincipal currentUser;
+  private String previousKey;
+  private EntityManager entityManager;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+        "DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username = 'it_picture')");
+    jdbcTemplate.update("DELETE FROM users WHERE username = 'it_picture'");
+    Long userId =
+        jdbcTemplate.queryForObject(
+            "INSERT INTO users (username, email, provider) VALUES ('it_picture',"
+                + " 'it_picture@example.com', 'LOCAL') RETURNING id",
+            Long.class);
+    previousKey = "profile-pictures/" + userId + "/old.png";
+    jdbcTemplate.update(
+        "UPDATE users SET profile_picture_url = ?, profile_picture_thumbnails = '{64}' WHERE id = ?",
+        previousKey,
+        userId);
+    currentUser = UserPrincipal.create(userRepository.findById(userId).orElseThrow());
+    when(profilePictureUrls.resolve(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    entityManager = entityManagerFactory.createEntityManager();
+    TransactionSynchronizationManager.bindResource(
+        entityManagerFactory, new EntityManagerHolder(entityManager));
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+    entityManager.close();
+  }
+
+  @Test
+  @DisplayName("Should answer a streamed upload with the new picture, not the deleted one")
+  void shouldRespondWithStreamedPicture() throws Exception {
+    // Arrange
+    String key = "profile-pictures/" + currentUser.getId() + "/new.png";
+    when(s3Service.uploadStream(
+            any(InputStream.class), anyString(), anyString(), anyString(), anyLong()))
+        .thenReturn(key);
+
+    // Act
+    UserResponse response =
+        userService.updateProfilePicture(
+            currentUser, new ByteArrayInputStream(PNG), "image/png", PNG.length);
+
+    // Assert
+    verify(s3Service).deleteFile(previousKey);
+    assertThat(response.getProfilePictureUrl()).isEqualTo(key);
+    assertThat(response.getProfilePictureThumbnails()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should answer a confirmed upload with the new picture, not the deleted one")
+  void shouldRespondWithConfirmedPicture() {
+    // Arrange
+    String key = "profile-pictures/" + currentUser.getId() + "/new.png";
+    when(s3Service.headFile(key))
+        .thenReturn(
+            Optional.of(
+                HeadObjectResponse.builder().contentType("image/png").contentLength(512L).build()));
+
+    // Act
+    UserResponse response = userService.confirmProfilePicture(currentUser, key);
+
+    // Assert
+    verify(s3Service).deleteFile(previousKey);
+    assertThat(response.getProfilePictureUrl()).isEqualTo(key);
+    assertThat(response.getProfilePictureThumbnails()).isEmpty();
+  }
+}
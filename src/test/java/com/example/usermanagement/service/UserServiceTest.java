@@ -1,20 +1,35 @@
 package com.example.usermanagement.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
+import com.example.usermanagement.dto.ProfilePictureUploadRequest;
+import com.example.usermanagement.dto.ProfilePictureUploadResponse;
 import com.example.usermanagement.dto.UpdateUserRequest;
 import com.example.usermanagement.dto.UserResponse;
 import com.example.usermanagement.entity.Role;
 import com.example.usermanagement.entity.User;
+import com.example.usermanagement.exception.BadRequestException;
+import com.example.usermanagement.exception.PayloadTooLargeException;
+import com.example.usermanagement.exception.UnsupportedMediaTypeException;
 import com.example.usermanagement.repository.UserRepository;
+import com.example.usermanagement.security.UserChangedEvent;
 import com.example.usermanagement.security.UserPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,20 +37,36 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
   @Mock private UserRepository userRepository;
   @Mock private S3Service s3Service;
+  @Mock private ApplicationEventPublisher eventPublisher;
+  @Mock private ProfilePictureUrls profilePictureUrls;
+  @Mock private ProfilePictureThumbnails profilePictureThumbnails;
 
   @InjectMocks private UserService userService;
 
+  @BeforeEach
+  void setUpPictureUrls() {
+    lenient()
+        .when(profilePictureUrls.resolve(any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
   private Role createUserRole() {
     Role role = new Role();
     role.setId(1L);
@@ -90,6 +121,24 @@ class UserServiceTest {
       assertThat(response.getProfilePictureUrl()).isEqualTo(user.getProfilePictureUrl());
     }
 
+    @Test
+    @DisplayName("Should expose a URL per thumbnail size")
+    void shouldExposeThumbnails() {
+      // Arrange
+      user.setProfilePictureUrl("profile-pictures/1/a.png");
+      user.setProfilePictureThumbnails(new Integer[] {256, 64});
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+      // Act
+      UserResponse response = userService.getUserProfile(currentUser);
+
+      // Assert
+      assertThat(response.getProfilePictureThumbnails())
+          .containsExactly(
+              entry(64, "profile-pictures/1/thumbnails/a_64.jpg"),
+              entry(256, "profile-pictures/1/thumbnails/a_256.jpg"));
+    }
+
     @Test
     @DisplayName("Should throw exception when user not found")
     void shouldThrowExceptionWhenUserNotFound() {
@@ -132,6 +181,7 @@ class UserServiceTest {
       assertThat(response).isNotNull();
       assertThat(response.getUsername()).isEqualTo(updateRequest.getUsername());
       verify(userRepository).save(any(User.class));
+      verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -144,6 +194,7 @@ class UserServiceTest {
       // Act & Assert
       org.junit.jupiter.api.Assertions.assertThrows(
           RuntimeException.class, () -> userService.updateUser(currentUser, updateRequest));
+      verify(eventPublisher, never()).publishEvent(any(UserChangedEvent.class));
       verify(userRepository, never()).save(any(User.class));
     }
 
@@ -202,6 +253,7 @@ class UserServiceTest {
       verify(s3Service).deleteFile("profile.jpg");
       verify(s3Service).uploadFile(any(MultipartFile.class), eq("profile-pictures/1"));
       verify(userRepository).save(any(User.class));
+      verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
     }
 
     @Test
@@ -245,7 +297,31 @@ class UserServiceTest {
       assertThat(response).isNotNull();
       assertThat(response.getProfilePictureUrl()).isNull();
       verify(s3Service).deleteFile("profile.jpg");
+      verify(profilePictureUrls).evict("profile.jpg");
       verify(userRepository).save(any(User.class));
+      verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
+    }
+
+    @Test
+    @DisplayName("Should delete the thumbnails along with the picture")
+    void shouldDeleteThumbnailsWithPicture() {
+      // Arrange
+      user.setProfilePictureUrl("profile-pictures/1/a.png");
+      user.setProfilePictureThumbnails(new Integer[] {64});
+      when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+      when(userRepository.save(any(User.class)))
+          .thenAnswer(invocation -> invocation.getArgument(0));
+      when(profilePictureThumbnails.variantKeys("profile-pictures/1/a.png", new Integer[] {64}))
+          .thenReturn(List.of("profile-pictures/1/thumbnails/a_64.jpg"));
+
+      // Act
+      UserResponse response = userService.deleteProfilePicture(currentUser);
+
+      // Assert
+      assertThat(response.getProfilePictureThumbnails()).isEmpty();
+      verify(s3Service).deleteFile("profile-pictures/1/a.png");
+      verify(s3Service).deleteFile("profile-pictures/1/thumbnails/a_64.jpg");
+      verify(profilePictureUrls).evict("profile-pictures/1/thumbnails/a_64.jpg");
     }
 
     @Test
@@ -280,4 +356,212 @@ class UserServiceTest {
       verify(userRepository, never()).save(any(User.class));
     }
   }
+
+  @Nested
+  @DisplayName("Streamed Profile Picture Tests")
+  class StreamedProfilePictureTests {
+    private static final byte[] PNG =
+        new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H'};
+
+    private User user;
+    private UserPrincipal currentUser;
+
+    @BeforeEach
+    void setUp() {
+      user = createUser();
+      currentUser = createUserPrincipal(user);
+      ReflectionTestUtils.setField(userService, "maxPictureSize", DataSize.ofKilobytes(1));
+    }
+
+    @Test
+    @DisplayName("Should stream the image, record it, then delete the previous picture")
+    void shouldStreamProfilePicture() throws Exception {
+      // Arrange
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+      when(s3Service.uploadStream(
+              any(InputStream.class),
+              eq("profile-pictures/1"),
+              eq("image/png"),
+              eq(".png"),
+              eq(1024L)))
+          .thenAnswer(
+              invocation -> {
+                // The sniffed header must still reach storage
+                assertThat(invocation.getArgument(0, InputStream.class).readAllBytes())
+                    .isEqualTo(PNG);
+                return "profile-pictures/1/new.png";
+              });
+      when(userRepository.updateProfilePictureUrl(1L, "profile-pictures/1/new.png")).thenReturn(1);
+
+      // Act
+      userService.updateProfilePicture(
+          currentUser, new ByteArrayInputStream(PNG), "image/png", PNG.length);
+
+      // Assert
+      InOrder inOrder = inOrder(userRepository, s3Service);
+      inOrder.verify(userRepository).updateProfilePictureUrl(1L, "profile-pictures/1/new.png");
+      inOrder.verify(s3Service).deleteFile("profile.jpg");
+      verify(profilePictureUrls).evict("profile.jpg");
+      verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
+    }
+
+    @Test
+    @DisplayName("Should reject content that does not match the declared type before storing it")
+    void shouldRejectMismatchedContent() {
+      // Arrange
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+      // Act & Assert
+      assertThrows(
+          UnsupportedMediaTypeException.class,
+          () ->
+              userService.updateProfilePicture(
+                  currentUser, new ByteArrayInputStream(PNG), "image/jpeg", PNG.length));
+      verify(s3Service, never())
+          .uploadStream(any(), anyString(), anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should reject unsupported types and declared oversized bodies without reading")
+    void shouldRejectBeforeReading() {
+      // Arrange
+      InputStream content = mock(InputStream.class);
+
+      // Act & Assert
+      assertThrows(
+          UnsupportedMediaTypeException.class,
+          () -> userService.updateProfilePicture(currentUser, content, "text/html", 10));
+      assertThrows(
+          PayloadTooLargeException.class,
+          () -> userService.updateProfilePicture(currentUser, content, "image/png", 4096));
+      verifyNoInteractions(content, userRepository, s3Service);
+    }
+  }
+
+  @Nested
+  @DisplayName("Direct Upload Tests")
+  class DirectUploadTests {
+    private User user;
+    private UserPrincipal currentUser;
+
+    @BeforeEach
+    void setUp() {
+      user = createUser();
+      currentUser = createUserPrincipal(user);
+      ReflectionTestUtils.setField(userService, "maxPictureSize", DataSize.ofKilobytes(1));
+      ReflectionTestUtils.setField(userService, "uploadUrlTtl", Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Should presign a PUT under the user's directory, bound to type and length")
+    void shouldPresignUpload() throws Exception {
+      // Arrange
+      ProfilePictureUploadRequest request = new ProfilePictureUploadRequest();
+      request.setContentType("image/png");
+      request.setContentLength(512);
+      PresignedPutObjectRequest presigned = mock(PresignedPutObjectRequest.class);
+      when(presigned.url())
+          .thenReturn(URI.create("http://localhost:4566/user-profiles/key").toURL());
+      when(presigned.signedHeaders())
+          .thenReturn(
+              Map.of(
+                  "host", List.of("localhost:4566"),
+                  "content-type", List.of("image/png"),
+                  "content-length", List.of("512")));
+      when(s3Service.presignUpload(
+              startsWith("profile-pictures/1/"), eq("image/png"), eq(512L), any(Duration.class)))
+          .thenReturn(presigned);
+
+      // Act
+      ProfilePictureUploadResponse response =
+          userService.createProfilePictureUpload(currentUser, request);
+
+      // Assert
+      assertThat(response.getKey()).startsWith("profile-pictures/1/").endsWith(".png");
+      assertThat(response.getHeaders())
+          .containsOnly(entry("content-type", "image/png"), entry("content-length", "512"));
+    }
+
+    @Test
+    @DisplayName("Should refuse to confirm a key outside the user's directory or below it")
+    void shouldRejectForeignKey() {
+      // Act & Assert
+      assertThrows(
+          BadRequestException.class,
+          () -> userService.confirmProfilePicture(currentUser, "profile-pictures/2/x.png"));
+      assertThrows(
+          BadRequestException.class,
+          () -> userService.confirmProfilePicture(currentUser, "profile-pictures/1/../2/x.png"));
+      assertThrows(
+          BadRequestException.class,
+          () ->
+              userService.confirmProfilePicture(
+                  currentUser, "profile-pictures/1/thumbnails/a_64.jpg"));
+      verifyNoInteractions(s3Service, userRepository);
+    }
+
+    @Test
+    @DisplayName("Should delete and reject an uploaded object that is not an accepted image")
+    void shouldRejectInvalidUpload() {
+      // Arrange
+      String key = "profile-pictures/1/new.png";
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+      when(s3Service.headFile(key))
+          .thenReturn(
+              Optional.of(
+                  HeadObjectResponse.builder()
+                      .contentType("text/html")
+                      .contentLength(10L)
+                      .build()));
+
+      // Act & Assert
+      assertThrows(
+          UnsupportedMediaTypeException.class,
+          () -> userService.confirmProfilePicture(currentUser, key));
+      verify(s3Service).deleteFile(key);
+      verify(userRepository, never()).updateProfilePictureUrl(anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should make a confirmed upload the picture and delete the previous one")
+    void shouldConfirmUpload() {
+      // Arrange
+      String key = "profile-pictures/1/new.png";
+      when(s3Service.headFile(key))
+          .thenReturn(
+              Optional.of(
+                  HeadObjectResponse.builder()
+                      .contentType("image/png")
+                      .contentLength(512L)
+                      .build()));
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+      // Act
+      userService.confirmProfilePicture(currentUser, key);
+
+      // Assert
+      InOrder inOrder = inOrder(userRepository, s3Service);
+      inOrder.verify(userRepository).updateProfilePictureUrl(1L, key);
+      inOrder.verify(s3Service).deleteFile("profile.jpg");
+      verify(eventPublisher).publishEvent(new UserChangedEvent(1L));
+      verify(eventPublisher).publishEvent(new ProfilePictureChangedEvent(1L, key));
+    }
+
+    @Test
+    @DisplayName("Should leave the current picture alone when it is confirmed again")
+    void shouldNotCheckCurrentPicture() {
+      // Arrange: stored by the multipart upload, which took any content type
+      String key = "profile-pictures/1/legacy.bin";
+      user.setProfilePictureUrl(key);
+      when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+      // Act
+      UserResponse response = userService.confirmProfilePicture(currentUser, key);
+
+      // Assert
+      assertThat(response.getProfilePictureUrl()).isEqualTo(key);
+      verifyNoInteractions(s3Service, eventPublisher);
+      verify(userRepository, never()).updateProfilePictureUrl(anyLong(), anyString());
+    }
+  }
 }